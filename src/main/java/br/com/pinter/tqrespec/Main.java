@@ -33,7 +33,6 @@ import br.com.pinter.tqrespec.tqdata.GameVersion;
 import br.com.pinter.tqrespec.tqdata.Txt;
 import br.com.pinter.tqrespec.util.Build;
 import br.com.pinter.tqrespec.util.Constants;
-import com.google.common.util.concurrent.AtomicDouble;
 import com.google.inject.Inject;
 import javafx.application.Application;
 import javafx.application.HostServices;
@@ -55,6 +54,7 @@ import javafx.stage.DirectoryChooser;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 import javafx.stage.WindowEvent;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.SystemUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
@@ -66,16 +66,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 @SuppressWarnings("FieldCanBeLocal")
 public class Main extends Application {
-    private final AtomicDouble progress = new AtomicDouble(0.0);
-    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private static final double PROGRESS_PATHS = 0.1;
     @Inject
     private Db db;
     @Inject
@@ -88,7 +83,7 @@ public class Main extends Application {
     private UIUtils uiUtils;
     private System.Logger logger;
     private StringExpression initialFontBinding;
-    private Future<?> processBarTask;
+    private boolean lazyText = false;
 
     public static void main(String... args) {
         System.setProperty("javafx.preloader", "br.com.pinter.tqrespec.gui.AppPreloader");
@@ -158,7 +153,7 @@ public class Main extends Application {
         try {
             gameInfo.getDatabasePath();
             gameInfo.getTextPath();
-            progressSet(0.1, 0.2);
+            notifyProgress(PROGRESS_PATHS);
 
         } catch (FileNotFoundException e) {
             uiUtils.showError(ResourceHelper.getMessage(Constants.Msg.MAIN_GAMENOTDETECTED), ResourceHelper.getMessage(Constants.Msg.MAIN_CHOOSEGAMEDIRECTORY));
@@ -169,16 +164,17 @@ public class Main extends Application {
         Task<Void> task = new Task<>() {
             @Override
             public Void call() {
-                //preload game database metadata and skills
-                progressSet(0.2, 0.3);
-                db.initialize();
-                progressSet(0.3, 0.95);
-                db.skills().preload();
-                progressSet(0.95, 1.0);
-                db.teleports().preload();
-                txt.preload();
-                progressSet(1.0, 1.0);
-                db.player().preload();
+                txt.setLazy(lazyText);
+                //text archives and the database are separate readers, the text overlaps with the database. The
+                //database preloads share the tqdatabase reader, which is not thread safe, so they run one at a time
+                new TaskGraph()
+                        .add("text", 3, txt::preload)
+                        .add("database", 3, db::initialize)
+                        .add("skills", 5, () -> db.skills().preload(), "database")
+                        .add("teleports", 1, () -> db.teleports().preload(), "skills")
+                        .add("player", 1, () -> db.player().preload(), "teleports")
+                        .setProgressListener(p -> notifyProgress(PROGRESS_PATHS + (1.0 - PROGRESS_PATHS) * p))
+                        .run();
 
                 try {
                     new Thread(new GameProcessMonitor(gameInfo.getGamePath())).start();
@@ -203,31 +199,8 @@ public class Main extends Application {
 
     }
 
-    private void progressSet(double forceStart, double end) {
-        if (processBarTask != null) {
-            processBarTask.cancel(false);
-        }
-
-        if (forceStart >= progress.get()) {
-            progress.set(forceStart);
-        }
-        notifyPreloader(new Preloader.ProgressNotification(progress.get()));
-
-        if (forceStart == 1.0) {
-            executorService.shutdown();
-            return;
-        }
-
-        processBarTask = executorService.submit(() -> {
-            for (double start = progress.get(); progress.get() < end; progress.getAndAdd((end - start) / 20)) {
-                try {
-                    TimeUnit.MILLISECONDS.sleep(Math.round((1 - (end - start)) * 1000));
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-                notifyPreloader(new Preloader.ProgressNotification(progress.get()));
-            }
-        });
+    private void notifyProgress(double progress) {
+        notifyPreloader(new Preloader.ProgressNotification(progress));
     }
 
     private void alertException(Stage primaryStage, Throwable e) {
@@ -260,7 +233,7 @@ public class Main extends Application {
 
         logger = Log.getLogger(Main.class.getName());
         logger.log(System.Logger.Level.DEBUG, State.get().getDebugPrefix());
-        progressSet(0.0, 0.1);
+        notifyProgress(0.0);
         prepareMainStage(primaryStage);
         load(primaryStage);
     }
@@ -331,6 +304,7 @@ public class Main extends Application {
     }
 
     private void parseCliParams() {
+        lazyText = BooleanUtils.toBoolean(getParameters().getNamed().get("lazytext"));
         String debugParam = getParameters().getNamed().get("debug");
         int debug = 0;
         try {
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.core;
+
+import br.com.pinter.tqrespec.logging.Log;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Runs a set of tasks in parallel, each one starting as soon as the tasks it depends on are finished. Dependencies
+ * must be added first, so the graph can't have cycles. Progress is the sum of the weights of the finished tasks.
+ * <pre>
+ * new TaskGraph()
+ *         .add("database", 3, db::initialize)
+ *         .add("skills", 5, () -&gt; db.skills().preload(), "database")
+ *         .run();
+ * </pre>
+ */
+public class TaskGraph {
+    private static final System.Logger logger = Log.getLogger(TaskGraph.class.getName());
+
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private DoubleConsumer progressListener = p -> {
+    };
+    private double totalWeight = 0;
+    private double doneWeight = 0;
+
+    private record Node(String name, double weight, Runnable task, List<String> dependencies) {
+    }
+
+    /**
+     * @param weight       relative duration of the task, used for progress
+     * @param dependencies names of tasks that must finish before this one starts
+     */
+    public TaskGraph add(String name, double weight, Runnable task, String... dependencies) {
+        if (nodes.containsKey(name)) {
+            throw new IllegalArgumentException(String.format("Task '%s' already added", name));
+        }
+        for (String d : dependencies) {
+            if (!nodes.containsKey(d)) {
+                throw new IllegalArgumentException(String.format("Task '%s' depends on unknown task '%s'", name, d));
+            }
+        }
+        nodes.put(name, new Node(name, weight, task, List.of(dependencies)));
+        totalWeight += weight;
+        return this;
+    }
+
+    /**
+     * @param progressListener receives the progress, from 0 to 1, from the thread that finished a task
+     */
+    public TaskGraph setProgressListener(DoubleConsumer progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * Run all tasks and wait. If a task fails, the tasks depending on it are not started and the exception is thrown
+     * after the others finish.
+     */
+    public void run() {
+        int threads = Math.max(1, Math.min(nodes.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new WorkerThread(r);
+            t.setDaemon(true);
+            return t;
+        });
+
+        long start = System.nanoTime();
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        try {
+            for (Node n : nodes.values()) {
+                CompletableFuture<?>[] dependencies = n.dependencies().stream().map(futures::get)
+                        .toArray(CompletableFuture<?>[]::new);
+                futures.put(n.name(), CompletableFuture.allOf(dependencies).thenRunAsync(() -> runTask(n), executor));
+            }
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e;
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException r) {
+                throw r;
+            }
+            throw new UnhandledRuntimeException(cause);
+        } finally {
+            executor.shutdown();
+        }
+        logger.log(System.Logger.Level.INFO, "{0} tasks finished in {1}ms", nodes.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void runTask(Node n) {
+        long start = System.nanoTime();
+        n.task().run();
+        logger.log(System.Logger.Level.INFO, "Task ''{0}'' finished in {1}ms", n.name(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        //notified while holding the lock, so progress never goes backwards
+        synchronized (this) {
+            doneWeight += n.weight();
+            progressListener.accept(totalWeight > 0 ? doneWeight / totalWeight : 1);
+        }
+    }
+}
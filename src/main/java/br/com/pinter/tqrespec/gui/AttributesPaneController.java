@@ -25,6 +25,7 @@ import br.com.pinter.tqrespec.logging.Log;
 import br.com.pinter.tqrespec.save.player.Gender;
 import br.com.pinter.tqrespec.save.player.Player;
 import br.com.pinter.tqrespec.tqdata.Db;
+import br.com.pinter.tqrespec.tqdata.DisplayStrings;
 import br.com.pinter.tqrespec.tqdata.Txt;
 import br.com.pinter.tqrespec.util.Constants;
 import com.google.inject.Inject;
@@ -76,6 +77,8 @@ public class AttributesPaneController implements Initializable {
     @Inject
     private Txt txt;
     @Inject
+    private DisplayStrings displayStrings;
+    @Inject
     private Player player;
     @FXML
     private Spinner<Integer> strSpinner;
@@ -377,12 +380,7 @@ public class AttributesPaneController implements Initializable {
         charClassText.setText(player.getPlayerClassName());
         int difficulty = player.getDifficulty();
 
-        String difficultyTextValue = String.format("%s%02d", Constants.UI.PREFIXTAG_DIFFICULTYLABEL, difficulty + 1);
-        if (txt.isTagStringValid(difficultyTextValue)) {
-            difficultyText.setText(ResourceHelper.cleanTagString(txt.getString(difficultyTextValue)));
-        } else {
-            difficultyText.setText(ResourceHelper.getMessage(String.format("difficulty.%d", difficulty)));
-        }
+        difficultyText.setText(displayStrings.difficulty(difficulty));
 
         experienceText.setText(NumberFormat.getInstance().format(xp));
         charLevelText.setText(String.valueOf(level));
@@ -25,7 +25,10 @@ import br.com.pinter.tqrespec.core.UnhandledRuntimeException;
 import br.com.pinter.tqrespec.core.WorkerThread;
 import br.com.pinter.tqrespec.logging.Log;
 import br.com.pinter.tqrespec.save.SaveLocation;
+import br.com.pinter.tqrespec.save.exporter.CharacterCsvExporter;
 import br.com.pinter.tqrespec.save.player.Archiver;
+import br.com.pinter.tqrespec.save.player.CharacterRoster;
+import br.com.pinter.tqrespec.save.player.CharacterWatcher;
 import br.com.pinter.tqrespec.save.player.PlayerLoader;
 import br.com.pinter.tqrespec.tqdata.*;
 import br.com.pinter.tqrespec.util.Build;
@@ -56,16 +59,13 @@ import org.apache.commons.lang3.SystemUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.ResourceBundle;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
 
 public class CharactersViewController implements Initializable {
     private static final System.Logger logger = Log.getLogger(CharactersViewController.class.getName());
@@ -86,7 +86,7 @@ public class CharactersViewController implements Initializable {
     private PlayerLoader player;
 
     @Inject
-    private Txt txt;
+    private DisplayStrings displayStrings;
 
     @FXML
     private Button exportButton;
@@ -188,6 +188,15 @@ public class CharactersViewController implements Initializable {
     @Inject
     private Archiver archiver;
 
+    @Inject
+    private CharacterRoster characterRoster;
+
+    @Inject
+    private CharacterCsvExporter characterCsvExporter;
+
+    @Inject
+    private CharacterWatcher characterWatcher;
+
     @FXML
     public void closeWindow(@SuppressWarnings("unused") MouseEvent evt) {
         close();
@@ -201,6 +210,7 @@ public class CharactersViewController implements Initializable {
         charactersTable.scrollTo(0);
         charactersTable.getItems().clear();
         charactersTable.getSortOrder().clear();
+        characterWatcher.stop();
         Stage stage = (Stage) rootElement.getScene().getWindow();
         player.reset();
         characters = null;
@@ -243,28 +253,63 @@ public class CharactersViewController implements Initializable {
         Platform.runLater(() -> {
             charactersTable.setPlaceholder(new Label(ResourceHelper.getMessage("characters.loadingPlaceholder")));
             rootElement.getScene().setCursor(Cursor.WAIT);
-
+            setupTable();
         });
 
-        characters = new ArrayList<>();
-        for (PlayerCharacterFile p : gameInfo.getPlayerCharacterList()) {
-            try {
-                player.loadPlayer(p.getPlayerName(), p.getLocation());
-            } catch (RuntimeException e) {
-                logger.log(System.Logger.Level.ERROR, String.format("Error loading character '%s'", p));
-                continue;
-            }
-            characters.add(player.getCharacter());
-        }
+        List<PlayerCharacter> result = characterRoster.load(
+                playerCharacter -> Platform.runLater(() -> charactersTable.getItems().add(playerCharacter)));
 
         Platform.runLater(() -> {
-            setupTable();
+            characters = new ArrayList<>(result);
+            if (charactersTable.getSortOrder().isEmpty()) {
+                //keep the same order of the character list once everything is loaded
+                charactersTable.getItems().setAll(characters);
+            }
+            resizeCharactersTable();
             charactersTable.setPlaceholder(new Label(""));
             Platform.runLater(() -> rootElement.getScene().setCursor(Cursor.DEFAULT));
             loadingCharacters.set(false);
+            watchCharacters();
         });
     }
 
+    private void watchCharacters() {
+        if (characterWatcher.isRunning()) {
+            return;
+        }
+        characterWatcher.start(new CharacterWatcher.Listener() {
+            @Override
+            public void characterChanged(PlayerCharacterFile playerCharacterFile) {
+                PlayerCharacter playerCharacter = characterRoster.refresh(playerCharacterFile);
+                if (playerCharacter != null) {
+                    Platform.runLater(() -> {
+                        if (characters == null) {
+                            //window closed while the character was parsed
+                            return;
+                        }
+                        removeCharacterRows(playerCharacter.getPath());
+                        characters.add(playerCharacter);
+                        charactersTable.getItems().add(playerCharacter);
+                    });
+                }
+            }
+
+            @Override
+            public void characterRemoved(PlayerCharacterFile playerCharacterFile) {
+                Path playerPath = characterRoster.remove(playerCharacterFile);
+                Platform.runLater(() -> removeCharacterRows(playerPath));
+            }
+        });
+    }
+
+    private void removeCharacterRows(Path playerPath) {
+        if (characters == null) {
+            return;
+        }
+        characters.removeIf(c -> playerPath.equals(c.getPath()));
+        charactersTable.getItems().removeIf(c -> playerPath.equals(c.getPath()));
+    }
+
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         player.reset();
@@ -371,7 +416,10 @@ public class CharactersViewController implements Initializable {
         } catch (IOException e) {
             throw new UnhandledRuntimeException(e);
         } finally {
-            reset();
+            if (!characterWatcher.isRunning()) {
+                //without the watcher the rows are not updated
+                reset();
+            }
             SaveLocation locationMessage = selected.getLocation();
             if(locationMessage.equals(SaveLocation.ARCHIVEMAIN)) {
                 locationMessage = SaveLocation.MAIN;
@@ -419,35 +467,21 @@ public class CharactersViewController implements Initializable {
 
         colMasteryOne.setCellValueFactory(f -> {
             if (f.getValue().getMasteries() != null && !f.getValue().getMasteries().isEmpty()) {
-                Mastery mastery = f.getValue().getMasteries().get(0);
-                String s = txt.getCapitalizedString(mastery.getDisplayName());
-                return new SimpleStringProperty(String.format(Constants.Msg.CHARACTERS_NAMENUMBER_FORMAT, s, mastery.getLevel()));
+                return new SimpleStringProperty(displayStrings.mastery(f.getValue().getMasteries().get(0)));
             }
             return null;
         });
 
         colMasteryTwo.setCellValueFactory(f -> {
             if (f.getValue().getMasteries() != null && f.getValue().getMasteries().size() > 1) {
-                Mastery mastery = f.getValue().getMasteries().get(1);
-                String s = txt.getCapitalizedString(mastery.getDisplayName());
-                return new SimpleStringProperty(String.format(Constants.Msg.CHARACTERS_NAMENUMBER_FORMAT, s, mastery.getLevel()));
+                return new SimpleStringProperty(displayStrings.mastery(f.getValue().getMasteries().get(1)));
             }
             return null;
         });
 
-        colDifficulty.setCellValueFactory(f -> {
-            String difficultyText;
-            String difficultyTextValue = String.format("%s%02d",
-                    Constants.UI.PREFIXTAG_DIFFICULTYLABEL, f.getValue().getDifficulty() + 1);
-            if (txt.isTagStringValid(difficultyTextValue)) {
-                difficultyText = ResourceHelper.cleanTagString(txt.getString(difficultyTextValue));
-            } else {
-                difficultyText = ResourceHelper.getMessage(String.format("difficulty.%d", f.getValue().getDifficulty()));
-            }
-            return new SimpleStringProperty(difficultyText);
-        });
+        colDifficulty.setCellValueFactory(f -> new SimpleStringProperty(displayStrings.difficulty(f.getValue().getDifficulty())));
 
-        setupTableColumnString(colPlayTimeInSeconds, txt.getString(Constants.UI.TAG_STAT_ELAPSEDTIME).replace(":", ""), null);
+        setupTableColumnString(colPlayTimeInSeconds, displayStrings.label(Constants.UI.TAG_STAT_ELAPSEDTIME), null);
         colPlayTimeInSeconds.setCellValueFactory(f -> {
             int days = f.getValue().getPlayTimeInSeconds() / 86400;
             int hours = (f.getValue().getPlayTimeInSeconds() % 86400) / 3600;
@@ -455,10 +489,10 @@ public class CharactersViewController implements Initializable {
             return new SimpleStringProperty(String.format("%02d:%02d:%02d", days, hours, minutes));
         });
 
-        setupTableColumnInteger(colNumberOfDeaths, txt.getString(Constants.UI.TAG_STAT_TOTALDEATHS).replace(":", ""), "numberOfDeaths");
-        setupTableColumnInteger(colNumberOfKills, txt.getString(Constants.UI.TAG_STAT_MONSTERSKILLED).replace(":", ""), "numberOfKills");
-        setupTableColumnInteger(colGreatestDamageInflicted, txt.getString(Constants.UI.TAG_STAT_GREATESTDAMAGE).replace(":", ""), "greatestDamageInflicted");
-        setupTableColumnString(colGreatestMonsterKilled, txt.getString(Constants.UI.TAG_STAT_GREATESTMONSTER).replace(":", ""), null);
+        setupTableColumnInteger(colNumberOfDeaths, displayStrings.label(Constants.UI.TAG_STAT_TOTALDEATHS), "numberOfDeaths");
+        setupTableColumnInteger(colNumberOfKills, displayStrings.label(Constants.UI.TAG_STAT_MONSTERSKILLED), "numberOfKills");
+        setupTableColumnInteger(colGreatestDamageInflicted, displayStrings.label(Constants.UI.TAG_STAT_GREATESTDAMAGE), "greatestDamageInflicted");
+        setupTableColumnString(colGreatestMonsterKilled, displayStrings.label(Constants.UI.TAG_STAT_GREATESTMONSTER), null);
 
         colGreatestMonsterKilled.setCellValueFactory(f -> {
             if (f.getValue().getGreatestMonsterKilledName() != null) {
@@ -478,23 +512,24 @@ public class CharactersViewController implements Initializable {
         colLastTeleport.setCellValueFactory(f -> {
             MapTeleport mapTeleport = f.getValue().getLastMapTeleport();
             if (mapTeleport != null) {
-                return new SimpleStringProperty(txt.getString(mapTeleport.getName()));
+                return new SimpleStringProperty(displayStrings.text(mapTeleport.getName()));
             }
             return null;
         });
 
-        charactersTable.getItems().addAll(characters);
-
         charactersTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
-
-        resizeCharactersTable();
     }
 
     private void reset() {
         charactersTable.getItems().clear();
         characters.clear();
-        loadCharacters();
-        resizeCharactersTable();
+        new WorkerThread(new MyTask<>() {
+            @Override
+            protected Void call() {
+                loadCharacters();
+                return null;
+            }
+        }).start();
     }
 
     private void resizeCharactersTable() {
@@ -539,127 +574,8 @@ public class CharactersViewController implements Initializable {
             return;
         }
 
-        List<String[]> csvRows = new ArrayList<>();
-
-        String[] header = new String[]{
-                ResourceHelper.getMessage("characters.characterName"),
-                ResourceHelper.getMessage("characters.store"),
-                ResourceHelper.getMessage("main.charlevel"),
-                ResourceHelper.getMessage("main.gender"),
-                ResourceHelper.getMessage("main.charclass"),
-                ResourceHelper.getMessage("main.difficulty"),
-                ResourceHelper.getMessage("main.experience"),
-                ResourceHelper.getMessage("main.gold"),
-                ResourceHelper.getMessage("main.health"),
-                ResourceHelper.getMessage("main.energy"),
-                ResourceHelper.getMessage("main.strength"),
-                ResourceHelper.getMessage("main.intelligence"),
-                ResourceHelper.getMessage("main.dexterity"),
-                ResourceHelper.getMessage("characters.attributePoints"),
-                ResourceHelper.getMessage("characters.skillPoints"),
-                ResourceHelper.getMessage(Constants.Msg.CHARACTERS_TITLE_MASTERY),
-                ResourceHelper.getMessage(Constants.Msg.CHARACTERS_TITLE_MASTERY),
-                ResourceHelper.getMessage("characters.lastTeleport"),
-                txt.getString(Constants.UI.TAG_STAT_ELAPSEDTIME),
-                txt.getString(Constants.UI.TAG_STAT_TOTALDEATHS),
-                txt.getString(Constants.UI.TAG_STAT_MONSTERSKILLED),
-                txt.getString(Constants.UI.TAG_STAT_GREATESTDAMAGE),
-                txt.getString(Constants.UI.TAG_STAT_GREATESTMONSTER),
-                ResourceHelper.getMessage("characters.experienceFromKills"),
-                ResourceHelper.getMessage("characters.healthPotionsUsed"),
-                ResourceHelper.getMessage("characters.manaPotionsUsed"),
-                ResourceHelper.getMessage("characters.numHitsReceived"),
-                ResourceHelper.getMessage("characters.numHitsInflicted"),
-                ResourceHelper.getMessage("characters.criticalHitsInflicted")
-        };
-        csvRows.add(header);
-
-        for (PlayerCharacter p : characters) {
-            String gender = ResourceHelper.getMessage("main.gender." + p.getGender().name().toLowerCase());
-            String difficultyText;
-            String difficultyTextValue = String.format("%s%02d",
-                    Constants.UI.PREFIXTAG_DIFFICULTYLABEL, p.getDifficulty() + 1);
-            if (txt.isTagStringValid(difficultyTextValue)) {
-                difficultyText = ResourceHelper.cleanTagString(txt.getString(difficultyTextValue));
-            } else {
-                difficultyText = ResourceHelper.getMessage(String.format("difficulty.%d", p.getDifficulty()));
-            }
-
-            String lastTeleport = "";
-            MapTeleport mapTeleport = p.getLastMapTeleport();
-            if (mapTeleport != null) {
-                lastTeleport = txt.getString(mapTeleport.getName());
-            }
-
-            String masteryOne = "";
-            String masteryTwo = "";
-            if (p.getMasteries() != null && !p.getMasteries().isEmpty()) {
-                Mastery mastery = p.getMasteries().get(0);
-                String s = txt.getCapitalizedString(mastery.getDisplayName());
-                masteryOne = String.format(Constants.Msg.CHARACTERS_NAMENUMBER_FORMAT, s, mastery.getLevel());
-            }
-
-            if (p.getMasteries() != null && p.getMasteries().size() > 1) {
-                Mastery mastery = p.getMasteries().get(1);
-                String s = txt.getCapitalizedString(mastery.getDisplayName());
-                masteryTwo = String.format(Constants.Msg.CHARACTERS_NAMENUMBER_FORMAT, s, mastery.getLevel());
-            }
-
-            String greatestMonsterKilled = "";
-            if (p.getGreatestMonsterKilledName() != null) {
-                String name = p.getGreatestMonsterKilledName().replaceAll("^\\{.*}", "");
-                greatestMonsterKilled = String.format(Constants.Msg.CHARACTERS_NAMENUMBER_FORMAT, name, p.getGreatestMonsterKilledLevel());
-            }
-
-            String[] row = new String[]{
-                    p.getName(),
-                    ResourceHelper.getMessage("characters.store." + p.getLocation()),
-                    String.valueOf(p.getLevel()),
-                    gender,
-                    p.getCharacterClass(),
-                    difficultyText,
-                    String.valueOf(p.getExperience()),
-                    String.valueOf(p.getGold()),
-                    String.valueOf(p.getStatLife()),
-                    String.valueOf(p.getStatMana()),
-                    String.valueOf(p.getStatStr()),
-                    String.valueOf(p.getStatInt()),
-                    String.valueOf(p.getStatDex()),
-                    String.valueOf(p.getStatAvailableAttrPoints()),
-                    String.valueOf(p.getStatAvailableSkillPoints()),
-                    masteryOne,
-                    masteryTwo,
-                    lastTeleport,
-                    String.valueOf(p.getPlayTimeInSeconds()),
-                    String.valueOf(p.getNumberOfDeaths()),
-                    String.valueOf(p.getNumberOfKills()),
-                    String.valueOf(p.getGreatestDamageInflicted()),
-                    greatestMonsterKilled,
-                    String.valueOf(p.getExperienceFromKills()),
-                    String.valueOf(p.getHealthPotionsUsed()),
-                    String.valueOf(p.getManaPotionsUsed()),
-                    String.valueOf(p.getNumHitsReceived()),
-                    String.valueOf(p.getNumHitsInflicted()),
-                    String.valueOf(p.getCriticalHitsInflicted()),
-            };
-            csvRows.add(row);
-        }
-
-        try (PrintWriter writer = new PrintWriter(csvFile, StandardCharsets.UTF_8)) {
-            csvRows.stream().map(r -> {
-                List<String> fields = Arrays.stream(r).map(f -> {
-                    String d = "";
-                    if (f != null) {
-                        d = f.replace("\r", "");
-                        if (d.matches(".*[,\"']*.*")) {
-                            d = d.replace("\"", "\"\"");
-                            d = "\"" + d + "\"";
-                        }
-                    }
-                    return d;
-                }).collect(Collectors.toList());
-                return String.join(",", fields);
-            }).forEach(writer::println);
+        try {
+            characterCsvExporter.export(csvFile.toPath(), characterRoster.query().list());
         } catch (IOException e) {
             logger.log(System.Logger.Level.ERROR, "Error saving csv file", e);
             throw new UnhandledRuntimeException("Error saving csv file", e);
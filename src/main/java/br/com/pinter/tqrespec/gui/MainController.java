@@ -24,6 +24,8 @@ import br.com.pinter.tqrespec.core.*;
 import br.com.pinter.tqrespec.logging.Log;
 import br.com.pinter.tqrespec.save.SaveLocation;
 import br.com.pinter.tqrespec.save.player.Player;
+import br.com.pinter.tqrespec.save.player.PlayerPrefetcher;
+import br.com.pinter.tqrespec.save.player.PlayerSessionCache;
 import br.com.pinter.tqrespec.save.player.PlayerWriter;
 import br.com.pinter.tqrespec.tqdata.Db;
 import br.com.pinter.tqrespec.tqdata.GameInfo;
@@ -54,7 +56,11 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 
@@ -62,6 +68,7 @@ import java.util.ResourceBundle;
 public class MainController implements Initializable {
     public static final BooleanProperty mainFormInitialized = new SimpleBooleanProperty();
     private static final System.Logger logger = Log.getLogger(MainController.class.getName());
+    private static final int MAX_RECENT_CHARACTERS = 3;
     public final BooleanProperty saveDisabled = new SimpleBooleanProperty();
     @FXML
     public GridPane pointsPane;
@@ -92,6 +99,10 @@ public class MainController implements Initializable {
     @Inject
     private Player player;
     @Inject
+    private PlayerPrefetcher playerPrefetcher;
+    @Inject
+    private PlayerSessionCache playerSessionCache;
+    @Inject
     private PlayerWriter playerWriter;
     @Inject
     private CheckVersionService checkVersionService;
@@ -118,6 +129,7 @@ public class MainController implements Initializable {
     private boolean isMoving = false;
     @Inject
     private Txt txt;
+    private final Deque<PlayerCharacterFile> recentCharacters = new ArrayDeque<>();
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -153,6 +165,25 @@ public class MainController implements Initializable {
         charactersButton.setGraphic(Icon.FA_USERS.create(1.4));
         charactersButton.setTooltip(uiUtils.simpleTooltip(ResourceHelper.getMessage("main.charactersButtonTooltip")));
 
+        //parse in background the characters likely to be selected: recently used when the list opens, and the hovered one
+        characterCombo.setOnShowing(e -> prefetchCharacters(List.copyOf(recentCharacters)));
+        characterCombo.setOnHidden(e -> playerPrefetcher.cancel());
+        characterCombo.setCellFactory(f -> {
+            ListCell<PlayerCharacterFile> cell = new ListCell<>() {
+                @Override
+                protected void updateItem(PlayerCharacterFile playerCharacterFile, boolean empty) {
+                    super.updateItem(playerCharacterFile, empty);
+                    setText(empty || playerCharacterFile == null ? null : playerCharacterFile.getPlayerName());
+                }
+            };
+            cell.setOnMouseEntered(e -> {
+                if (cell.getItem() != null) {
+                    prefetchCharacters(List.of(cell.getItem()));
+                }
+            });
+            return cell;
+        });
+
         State.get().gameRunningProperty().addListener((value, oldV, newV) -> {
             if (BooleanUtils.isTrue(newV)) {
                 Platform.runLater(() -> {
@@ -187,6 +218,28 @@ public class MainController implements Initializable {
         }
     }
 
+    private static boolean isSameCharacter(PlayerCharacterFile a, PlayerCharacterFile b) {
+        return a != null && b != null
+                && StringUtils.equals(a.getPlayerName(), b.getPlayerName()) && a.getLocation() == b.getLocation();
+    }
+
+    private void prefetchCharacters(List<PlayerCharacterFile> characters) {
+        if (BooleanUtils.isTrue(State.get().getGameRunning()) || BooleanUtils.isTrue(State.get().getSaveInProgress())) {
+            return;
+        }
+        List<PlayerCharacterFile> list = new ArrayList<>(characters);
+        list.removeIf(p -> isSameCharacter(p, characterCombo.getValue()));
+        playerPrefetcher.prefetch(list);
+    }
+
+    private void addRecentCharacter(PlayerCharacterFile character) {
+        recentCharacters.removeIf(p -> isSameCharacter(p, character));
+        recentCharacters.addFirst(character);
+        while (recentCharacters.size() > MAX_RECENT_CHARACTERS) {
+            recentCharacters.removeLast();
+        }
+    }
+
     public void setCharacterCombo(PlayerCharacterFile character) {
         if (characterCombo.getItems().contains(character)) {
             characterCombo.setValue(character);
@@ -205,6 +258,8 @@ public class MainController implements Initializable {
 
     @FXML
     public void close(MouseEvent evt) {
+        playerPrefetcher.cancel();
+        playerSessionCache.clear();
         uiUtils.closeApplication();
     }
 
@@ -259,17 +314,31 @@ public class MainController implements Initializable {
         pointsPaneController.clearProperties();
         skillsPaneController.resetSkilltabControls();
         miscPaneController.reset();
+        playerPrefetcher.cancel();
         player.reset();
+        //also called after save, other characters are parsed again from disk
+        playerSessionCache.clear();
         characterCombo.setValue(null);
         characterCombo.getItems().clear();
         addCharactersToCombo();
         setAllControlsDisable(true);
         characterCombo.setDisable(false);
         Toast.cancel();
+        warnDiscardedChanges();
         restoreDefaultCursor();
         tabPane.getSelectionModel().select(attributesTab);
     }
 
+    private void warnDiscardedChanges() {
+        List<String> discarded = playerSessionCache.takeDiscarded();
+        if (!discarded.isEmpty()) {
+            Toast.show((Stage) rootelement.getScene().getWindow(),
+                    ResourceHelper.getMessage("alert.changesDiscarded_header"),
+                    ResourceHelper.getMessage("alert.changesDiscarded_content", String.join(", ", discarded)),
+                    Constants.UI.TOAST_WARNING_TIMEOUT);
+        }
+    }
+
     public void setCursorWaitOnTask(MyTask<Integer> task) {
         tabPane.setCursor(Cursor.WAIT);
         State.get().setLastCursorWaitTask(task);
@@ -378,6 +447,7 @@ public class MainController implements Initializable {
             return;
         }
 
+        addRecentCharacter(playerCharacterFile);
         pointsPaneController.disableControls(false);
         miscPaneController.reset();
         miscPaneController.disableControls(false);
@@ -385,6 +455,7 @@ public class MainController implements Initializable {
         MyTask<Boolean> loadTask = new MyTask<>() {
             @Override
             protected Boolean call() {
+                playerPrefetcher.await(playerCharacterFile);
                 return player.loadPlayer(playerCharacterFile.getPlayerName(), playerCharacterFile.getLocation());
             }
         };
@@ -401,6 +472,7 @@ public class MainController implements Initializable {
                 characterCombo.setDisable(false);
                 miscPaneController.disableControls(false);
                 tabPane.getSelectionModel().select(attributesTab);
+                warnDiscardedChanges();
             }
         });
 
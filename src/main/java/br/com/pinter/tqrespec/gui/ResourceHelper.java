@@ -37,13 +37,73 @@ import java.io.InputStream;
 import java.net.URL;
 import java.text.MessageFormat;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.Set;
 
 public class ResourceHelper {
+    private static volatile MessageCatalog catalog = null;
+
     private ResourceHelper() {
     }
 
+    /**
+     * Messages of one locale, resolved from the bundle once. Patterns with parameters are parsed when the catalog is
+     * created, lookups only read immutable maps.
+     */
+    private record MessageCatalog(Locale locale, Map<String, String> messages, Map<String, MessageFormat> formats,
+                                  Set<String> statefulFormats) {
+        private static MessageCatalog load(Locale locale) {
+            ResourceBundle ui = ResourceBundle.getBundle("i18n.UI", locale);
+            Map<String, String> messages = new HashMap<>();
+            Map<String, MessageFormat> formats = new HashMap<>();
+            Set<String> statefulFormats = new HashSet<>();
+            for (String key : ui.keySet()) {
+                String value = ui.getString(key);
+                messages.put(key, value);
+                if (value.indexOf('{') >= 0 || value.indexOf('\'') >= 0) {
+                    try {
+                        MessageFormat format = new MessageFormat(value);
+                        formats.put(key, format);
+                        //without explicit subformats the instance is only read while formatting
+                        if (Arrays.stream(format.getFormats()).anyMatch(Objects::nonNull)) {
+                            statefulFormats.add(key);
+                        }
+                    } catch (IllegalArgumentException e) {
+                        //invalid pattern, the message is returned as is
+                    }
+                }
+            }
+            return new MessageCatalog(locale, Map.copyOf(messages), Map.copyOf(formats), Set.copyOf(statefulFormats));
+        }
+
+        private String format(String message, String pattern, Object... parameters) {
+            MessageFormat format = formats.get(message);
+            if (format == null) {
+                return pattern;
+            }
+            if (statefulFormats.contains(message)) {
+                format = (MessageFormat) format.clone();
+            }
+            return format.format(parameters);
+        }
+    }
+
+    private static MessageCatalog catalog() {
+        MessageCatalog c = catalog;
+        Locale locale = State.get().getLocale();
+        if (c == null || !c.locale().equals(locale)) {
+            c = MessageCatalog.load(locale);
+            catalog = c;
+        }
+        return c;
+    }
+
     public static List<Image> getAppIcons() {
             return Arrays.asList(loadImage("icon/icon64.png"), loadImage("icon/icon32.png"), loadImage("icon/icon16.png"));
     }
@@ -84,17 +144,15 @@ public class ResourceHelper {
     }
 
     public static String getMessage(String message) {
-        ResourceBundle ui = ResourceBundle.getBundle("i18n.UI", State.get().getLocale());
-        if (ui.containsKey(message)) {
-            return ui.getString(message);
-        }
-        return message;
+        String value = catalog().messages().get(message);
+        return value != null ? value : message;
     }
 
     public static String getMessage(String message, Object... parameters) {
-        ResourceBundle ui = ResourceBundle.getBundle("i18n.UI", State.get().getLocale());
-        if (ui.containsKey(message)) {
-            return MessageFormat.format(ui.getString(message), parameters);
+        MessageCatalog c = catalog();
+        String value = c.messages().get(message);
+        if (value != null) {
+            return c.format(message, value, parameters);
         }
         return message;
     }
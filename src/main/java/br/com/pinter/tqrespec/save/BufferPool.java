@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save;
+
+import com.google.inject.Singleton;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of buffers for files parsed only temporarily (e.g. character summaries), so bulk scans reuse the same memory
+ * instead of allocating a buffer per file. Buffers are grouped in power of two size classes, a lease returns a view
+ * with the exact size requested, since parsers use the capacity as the file size.
+ */
+@Singleton
+public class BufferPool {
+    private static final int MIN_CLASS_SHIFT = 14;
+    private static final int MAX_CLASS_SHIFT = 24;
+    private static final long MAX_RETAINED = 64L * 1024 * 1024;
+
+    private final List<Queue<ByteBuffer>> classes = new ArrayList<>();
+    private final AtomicLong retained = new AtomicLong();
+
+    public BufferPool() {
+        for (int i = MIN_CLASS_SHIFT; i <= MAX_CLASS_SHIFT; i++) {
+            classes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * A buffer borrowed from the pool. The buffer must not be used after {@link #close()}.
+     */
+    public final class Lease implements AutoCloseable {
+        private final ByteBuffer pooled;
+        private final ByteBuffer buffer;
+        private boolean closed = false;
+
+        private Lease(ByteBuffer pooled, int size) {
+            this.pooled = pooled;
+            this.buffer = pooled.clear().slice(0, size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * @return little endian buffer, capacity is the size requested
+         */
+        public ByteBuffer buffer() {
+            return buffer;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(pooled);
+            }
+        }
+    }
+
+    private static int sizeClass(int size) {
+        int shift = 32 - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1);
+        return Math.max(shift, MIN_CLASS_SHIFT) - MIN_CLASS_SHIFT;
+    }
+
+    /**
+     * @param size size of the buffer, sizes above the largest class are allocated and not pooled
+     */
+    public Lease lease(int size) {
+        int c = sizeClass(size);
+        if (c >= classes.size()) {
+            return new Lease(ByteBuffer.allocate(size), size);
+        }
+
+        ByteBuffer pooled = classes.get(c).poll();
+        if (pooled != null) {
+            retained.addAndGet(-pooled.capacity());
+        } else {
+            pooled = ByteBuffer.allocate(1 << (c + MIN_CLASS_SHIFT));
+        }
+        return new Lease(pooled, size);
+    }
+
+    private void release(ByteBuffer pooled) {
+        int c = Integer.numberOfTrailingZeros(pooled.capacity()) - MIN_CLASS_SHIFT;
+        if (Integer.bitCount(pooled.capacity()) != 1 || c < 0 || c >= classes.size()) {
+            return;
+        }
+        if (retained.addAndGet(pooled.capacity()) > MAX_RETAINED) {
+            retained.addAndGet(-pooled.capacity());
+            return;
+        }
+        classes.get(c).offer(pooled);
+    }
+
+    public void clear() {
+        for (Queue<ByteBuffer> q : classes) {
+            ByteBuffer b;
+            while ((b = q.poll()) != null) {
+                retained.addAndGet(-b.capacity());
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save;
+
+import br.com.pinter.tqrespec.logging.Log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Reads many files concurrently with {@link AsynchronousFileChannel}, keeping at most a fixed number of files in flight.
+ * Each file is read whole into a buffer and handed to the {@link Handler} in a thread of the executor, so the parse
+ * of a file overlaps with the reads of the next ones. A file only leaves the window after its handler returns, the
+ * window bounds the memory used by buffers waiting to be parsed. With a {@link BufferPool}, buffers are leased from the
+ * pool and returned after the handler, so they must not be kept by the handler.
+ */
+public class BulkFileReader {
+    private static final System.Logger logger = Log.getLogger(BulkFileReader.class.getName());
+
+    private final int maxInFlight;
+    private final ExecutorService executor;
+    private final BufferPool bufferPool;
+
+    public interface Handler {
+        /**
+         * @param index  index of the file in the list passed to {@link #readAll(List, Handler)}
+         * @param buffer file contents, little endian and rewound
+         */
+        void completed(int index, Path file, ByteBuffer buffer);
+
+        void failed(int index, Path file, Throwable e);
+    }
+
+    /**
+     * @param maxInFlight maximum number of files being read or handled at the same time
+     * @param executor    executor used for the I/O completions and handlers
+     */
+    public BulkFileReader(int maxInFlight, ExecutorService executor) {
+        this(maxInFlight, executor, null);
+    }
+
+    /**
+     * @param maxInFlight maximum number of files being read or handled at the same time
+     * @param executor    executor used for the I/O completions and handlers
+     * @param bufferPool  pool the buffers are leased from, or null to allocate a buffer per file
+     */
+    public BulkFileReader(int maxInFlight, ExecutorService executor, BufferPool bufferPool) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be >= 1");
+        }
+        this.maxInFlight = maxInFlight;
+        this.executor = executor;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Read all files, blocks until every file was handled.
+     */
+    public void readAll(List<Path> files, Handler handler) throws InterruptedException {
+        Semaphore window = new Semaphore(maxInFlight);
+        CountDownLatch done = new CountDownLatch(files.size());
+
+        for (int i = 0; i < files.size(); i++) {
+            window.acquire();
+            new FileRead(i, files.get(i), handler, () -> {
+                window.release();
+                done.countDown();
+            }).start();
+        }
+        done.await();
+    }
+
+    private class FileRead implements CompletionHandler<Integer, Void> {
+        private final int index;
+        private final Path file;
+        private final Handler handler;
+        private final Runnable onFinish;
+        private AsynchronousFileChannel channel;
+        private ByteBuffer buffer;
+        private BufferPool.Lease lease;
+
+        FileRead(int index, Path file, Handler handler, Runnable onFinish) {
+            this.index = index;
+            this.file = file;
+            this.handler = handler;
+            this.onFinish = onFinish;
+        }
+
+        void start() {
+            try {
+                channel = AsynchronousFileChannel.open(file, Set.of(StandardOpenOption.READ), executor);
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException(String.format("File '%s' is too large", file));
+                }
+                if (bufferPool != null) {
+                    lease = bufferPool.lease((int) size);
+                    buffer = lease.buffer();
+                } else {
+                    buffer = ByteBuffer.allocate((int) size);
+                    buffer.order(ByteOrder.LITTLE_ENDIAN);
+                }
+                if (size == 0) {
+                    finish(null);
+                } else {
+                    channel.read(buffer, 0, null, this);
+                }
+            } catch (IOException | RuntimeException e) {
+                finish(e);
+            }
+        }
+
+        @Override
+        public void completed(Integer read, Void attachment) {
+            if (read > 0 && buffer.hasRemaining()) {
+                channel.read(buffer, buffer.position(), null, this);
+                return;
+            }
+            finish(null);
+        }
+
+        @Override
+        public void failed(Throwable exc, Void attachment) {
+            finish(exc);
+        }
+
+        private void finish(Throwable error) {
+            close();
+            try {
+                if (error == null) {
+                    buffer.rewind();
+                    handler.completed(index, file, buffer);
+                } else {
+                    logger.log(System.Logger.Level.WARNING, "Unable to read ''{0}''", file);
+                    handler.failed(index, file, error);
+                }
+            } catch (RuntimeException e) {
+                logger.log(System.Logger.Level.ERROR, String.format("Error handling file '%s'", file), e);
+            } finally {
+                if (lease != null) {
+                    lease.close();
+                }
+                onFinish.run();
+            }
+        }
+
+        private void close() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    logger.log(System.Logger.Level.DEBUG, "Unable to close ''{0}''", file);
+                }
+            }
+        }
+    }
+}
@@ -94,6 +94,11 @@ public class FileDataMap implements DeepCloneable {
         return changes.keySet();
     }
 
+    int getValueOffset(String variable) {
+        VariableInfo v = getFirst(variable);
+        return v != null ? v.getValOffset() : -1;
+    }
+
     public Platform getPlatform() {
         return platform;
     }
@@ -226,6 +231,10 @@ public class FileDataMap implements DeepCloneable {
         }
     }
 
+    public boolean hasChanges() {
+        return !changes.isEmpty();
+    }
+
     public boolean isRemoved(int offset) {
         return changes.get(offset) != null && changes.get(offset).isEmpty();
     }
@@ -592,6 +601,22 @@ public class FileDataMap implements DeepCloneable {
         return ret;
     }
 
+    /**
+     * Stage a new value for a variable, any value staged before is replaced
+     *
+     * @param variable variable as parsed
+     * @param newVar   copy of the variable with the new value
+     */
+    public void setValue(VariableInfo variable, VariableInfo newVar) {
+        if (getBlockInfo().get(variable.getBlockOffset()) == null || !variable.getName().equals(newVar.getName())) {
+            throw new IllegalArgumentException(ResourceHelper.getMessage(ALERT_INVALIDDATA, variable.getName()));
+        }
+        if (!variable.getVariableType().equals(newVar.getVariableType())) {
+            throw new IllegalArgumentException(String.format(INVALID_DATA_TYPE, variable));
+        }
+        storeChange(variable, newVar);
+    }
+
     public void removeBlock(int offset) {
         BlockInfo current = getBlockInfo().get(offset);
         //we shouldnt leave var changes in the list, the block will disappear
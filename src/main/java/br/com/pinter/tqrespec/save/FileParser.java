@@ -33,6 +33,7 @@ import org.apache.commons.lang3.StringUtils;
 import java.io.IOException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -54,7 +55,9 @@ public abstract class FileParser {
     private ConcurrentHashMap<String, List<Integer>> variableLocation = new ConcurrentHashMap<>();
     private List<Integer> blocksIgnore = new ArrayList<>();
     private ByteBuffer buffer = null;
+    private ByteBuffer input = null;
     private Platform detectedPlatform = Platform.WINDOWS;
+    private VariableProjection.Binding<?> projection = null;
 
     public ConcurrentMap<Integer, BlockInfo> getBlockInfo() {
         return blockInfoTable;
@@ -68,6 +71,24 @@ public abstract class FileParser {
         return buffer;
     }
 
+    /**
+     * Variables found during the parse are passed to the projection, filling its target in the same pass.
+     *
+     * @param projection binding of a {@link VariableProjection}, or null
+     */
+    public void setProjection(VariableProjection.Binding<?> projection) {
+        this.projection = projection;
+    }
+
+    /**
+     * Parse contents already read by the caller (e.g. by {@link BulkFileReader}) instead of reading the file.
+     *
+     * @param input whole file contents
+     */
+    public void setInput(ByteBuffer input) {
+        this.input = input;
+    }
+
     protected void setBuffer(ByteBuffer buffer) {
         this.buffer = buffer;
     }
@@ -131,7 +152,11 @@ public abstract class FileParser {
      * @throws IOException
      */
     public void fillBuffer() throws IOException {
-        if (readFile()) {
+        if (input != null) {
+            setBuffer(input.order(ByteOrder.LITTLE_ENDIAN));
+            input = null;
+            prepareBufferForRead();
+        } else if (readFile()) {
             prepareBufferForRead();
         }
     }
@@ -199,6 +224,9 @@ public abstract class FileParser {
             }
             ret.put(variableInfo.getName(), variableInfo);
             putVarIndex(variableInfo.getName(), block.getStart());
+            if (projection != null) {
+                projection.accept(variableInfo);
+            }
 
             if(isDetectedBlockType(blockType) && !isDetectedBlockType(block.getBlockType())) {
                 block.setBlockType(blockType);
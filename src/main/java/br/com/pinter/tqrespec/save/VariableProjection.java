@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Maps variables to setters of a target object, so the parser can fill the target while it walks the blocks, instead
+ * of searching each variable after the parse. The spec is immutable after built and can be shared between threads,
+ * each parse uses its own {@link Binding}.
+ *
+ * @param <T> type of the object filled by the projection
+ */
+public class VariableProjection<T> {
+    private final Map<String, BiConsumer<T, VariableInfo>> setters;
+
+    private VariableProjection(Map<String, BiConsumer<T, VariableInfo>> setters) {
+        this.setters = Collections.unmodifiableMap(setters);
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    public Set<String> getVariables() {
+        return setters.keySet();
+    }
+
+    /**
+     * @param target object to be filled during the parse
+     * @return binding to be passed to the parser
+     */
+    public Binding<T> bind(T target) {
+        return new Binding<>(this, target);
+    }
+
+    public static class Builder<T> {
+        private final Map<String, BiConsumer<T, VariableInfo>> setters = new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Register a setter for the first occurrence of an integer variable
+         */
+        public Builder<T> intVar(String variable, IntSetter<T> setter) {
+            setters.put(variable, (t, v) -> {
+                if (v.isInt()) {
+                    setter.set(t, (Integer) v.getValue());
+                }
+            });
+            return this;
+        }
+
+        /**
+         * Register a setter for the first occurrence of a float variable
+         */
+        public Builder<T> floatVar(String variable, BiConsumer<T, Float> setter) {
+            setters.put(variable, (t, v) -> {
+                if (v.isFloat()) {
+                    setter.accept(t, (Float) v.getValue());
+                }
+            });
+            return this;
+        }
+
+        /**
+         * Register a setter for the first occurrence of a string variable
+         */
+        public Builder<T> stringVar(String variable, BiConsumer<T, String> setter) {
+            setters.put(variable, (t, v) -> {
+                if (v.isString()) {
+                    setter.accept(t, (String) v.getValue());
+                }
+            });
+            return this;
+        }
+
+        public VariableProjection<T> build() {
+            return new VariableProjection<>(new HashMap<>(setters));
+        }
+    }
+
+    @FunctionalInterface
+    public interface IntSetter<T> {
+        void set(T target, int value);
+    }
+
+    public static class Binding<T> {
+        private final VariableProjection<T> projection;
+        private final T target;
+        private final Set<String> seen = new HashSet<>();
+
+        private Binding(VariableProjection<T> projection, T target) {
+            this.projection = projection;
+            this.target = target;
+        }
+
+        public T getTarget() {
+            return target;
+        }
+
+        void accept(VariableInfo variableInfo) {
+            BiConsumer<T, VariableInfo> setter = projection.setters.get(variableInfo.getName());
+            if (setter != null && seen.add(variableInfo.getName())) {
+                setter.accept(target, variableInfo);
+            }
+        }
+    }
+}
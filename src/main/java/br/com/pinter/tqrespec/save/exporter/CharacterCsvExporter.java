@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.exporter;
+
+import br.com.pinter.tqrespec.gui.ResourceHelper;
+import br.com.pinter.tqrespec.save.player.Gender;
+import br.com.pinter.tqrespec.tqdata.DisplayStrings;
+import br.com.pinter.tqrespec.tqdata.MapTeleport;
+import br.com.pinter.tqrespec.tqdata.PlayerCharacter;
+import br.com.pinter.tqrespec.tqdata.Txt;
+import br.com.pinter.tqrespec.util.Constants;
+import com.google.inject.Inject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Exports character summaries to CSV, one row per character, written as each character is projected. Doesn't depend
+ * on the characters window, rows can be written while the characters are loaded, e.g.
+ * {@code roster.load(output::write)}.
+ */
+public class CharacterCsvExporter {
+    @Inject
+    private Txt txt;
+
+    @Inject
+    private DisplayStrings displayStrings;
+
+    /**
+     * Write all characters to the file
+     */
+    public void export(Path file, Iterable<PlayerCharacter> characters) throws IOException {
+        try (Output output = open(file)) {
+            for (PlayerCharacter p : characters) {
+                output.write(p);
+            }
+        }
+    }
+
+    /**
+     * Create the file and write the header, characters are written with {@link Output#write(PlayerCharacter)}
+     */
+    public Output open(Path file) throws IOException {
+        Output output = new Output(new CsvWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8)));
+        output.csv.writeRow(header());
+        return output;
+    }
+
+    public class Output implements Closeable {
+        private final CsvWriter csv;
+        //labels repeated in most rows are resolved once
+        private final Map<Gender, String> genders = new EnumMap<>(Gender.class);
+
+        private Output(CsvWriter csv) {
+            this.csv = csv;
+        }
+
+        /**
+         * Write a character, can be called from multiple threads
+         */
+        public synchronized void write(PlayerCharacter p) throws IOException {
+            csv.writeRow(row(p));
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            csv.close();
+        }
+
+        private String[] row(PlayerCharacter p) {
+            String gender = genders.computeIfAbsent(p.getGender(),
+                    g -> ResourceHelper.getMessage("main.gender." + g.name().toLowerCase()));
+            String difficultyText = displayStrings.difficulty(p.getDifficulty());
+
+            String lastTeleport = "";
+            MapTeleport mapTeleport = p.getLastMapTeleport();
+            if (mapTeleport != null) {
+                lastTeleport = displayStrings.text(mapTeleport.getName());
+            }
+
+            String masteryOne = "";
+            String masteryTwo = "";
+            if (p.getMasteries() != null && !p.getMasteries().isEmpty()) {
+                masteryOne = displayStrings.mastery(p.getMasteries().get(0));
+            }
+
+            if (p.getMasteries() != null && p.getMasteries().size() > 1) {
+                masteryTwo = displayStrings.mastery(p.getMasteries().get(1));
+            }
+
+            String greatestMonsterKilled = "";
+            if (p.getGreatestMonsterKilledName() != null) {
+                String name = p.getGreatestMonsterKilledName().replaceAll("^\\{.*}", "");
+                greatestMonsterKilled = String.format(Constants.Msg.CHARACTERS_NAMENUMBER_FORMAT, name, p.getGreatestMonsterKilledLevel());
+            }
+
+            return new String[]{
+                    p.getName(),
+                    ResourceHelper.getMessage("characters.store." + p.getLocation()),
+                    String.valueOf(p.getLevel()),
+                    gender,
+                    p.getCharacterClass(),
+                    difficultyText,
+                    String.valueOf(p.getExperience()),
+                    String.valueOf(p.getGold()),
+                    String.valueOf(p.getStatLife()),
+                    String.valueOf(p.getStatMana()),
+                    String.valueOf(p.getStatStr()),
+                    String.valueOf(p.getStatInt()),
+                    String.valueOf(p.getStatDex()),
+                    String.valueOf(p.getStatAvailableAttrPoints()),
+                    String.valueOf(p.getStatAvailableSkillPoints()),
+                    masteryOne,
+                    masteryTwo,
+                    lastTeleport,
+                    String.valueOf(p.getPlayTimeInSeconds()),
+                    String.valueOf(p.getNumberOfDeaths()),
+                    String.valueOf(p.getNumberOfKills()),
+                    String.valueOf(p.getGreatestDamageInflicted()),
+                    greatestMonsterKilled,
+                    String.valueOf(p.getExperienceFromKills()),
+                    String.valueOf(p.getHealthPotionsUsed()),
+                    String.valueOf(p.getManaPotionsUsed()),
+                    String.valueOf(p.getNumHitsReceived()),
+                    String.valueOf(p.getNumHitsInflicted()),
+                    String.valueOf(p.getCriticalHitsInflicted()),
+            };
+        }
+    }
+
+    private String[] header() {
+        return new String[]{
+                ResourceHelper.getMessage("characters.characterName"),
+                ResourceHelper.getMessage("characters.store"),
+                ResourceHelper.getMessage("main.charlevel"),
+                ResourceHelper.getMessage("main.gender"),
+                ResourceHelper.getMessage("main.charclass"),
+                ResourceHelper.getMessage("main.difficulty"),
+                ResourceHelper.getMessage("main.experience"),
+                ResourceHelper.getMessage("main.gold"),
+                ResourceHelper.getMessage("main.health"),
+                ResourceHelper.getMessage("main.energy"),
+                ResourceHelper.getMessage("main.strength"),
+                ResourceHelper.getMessage("main.intelligence"),
+                ResourceHelper.getMessage("main.dexterity"),
+                ResourceHelper.getMessage("characters.attributePoints"),
+                ResourceHelper.getMessage("characters.skillPoints"),
+                ResourceHelper.getMessage(Constants.Msg.CHARACTERS_TITLE_MASTERY),
+                ResourceHelper.getMessage(Constants.Msg.CHARACTERS_TITLE_MASTERY),
+                ResourceHelper.getMessage("characters.lastTeleport"),
+                txt.getString(Constants.UI.TAG_STAT_ELAPSEDTIME),
+                txt.getString(Constants.UI.TAG_STAT_TOTALDEATHS),
+                txt.getString(Constants.UI.TAG_STAT_MONSTERSKILLED),
+                txt.getString(Constants.UI.TAG_STAT_GREATESTDAMAGE),
+                txt.getString(Constants.UI.TAG_STAT_GREATESTMONSTER),
+                ResourceHelper.getMessage("characters.experienceFromKills"),
+                ResourceHelper.getMessage("characters.healthPotionsUsed"),
+                ResourceHelper.getMessage("characters.manaPotionsUsed"),
+                ResourceHelper.getMessage("characters.numHitsReceived"),
+                ResourceHelper.getMessage("characters.numHitsInflicted"),
+                ResourceHelper.getMessage("characters.criticalHitsInflicted")
+        };
+    }
+}
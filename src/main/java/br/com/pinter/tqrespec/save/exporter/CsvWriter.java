@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.exporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes CSV rows directly to a writer. Every non-null field is quoted, quotes are doubled and carriage returns are
+ * removed; null fields are written empty. Fields are scanned once and copied in runs, without intermediate strings.
+ */
+public class CsvWriter implements Closeable {
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer writer;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    public void writeRow(String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeField(fields[i]);
+        }
+        writer.write(LINE_SEPARATOR);
+    }
+
+    private void writeField(String field) throws IOException {
+        if (field == null) {
+            return;
+        }
+        writer.write('"');
+        int start = 0;
+        int len = field.length();
+        for (int i = 0; i < len; i++) {
+            char c = field.charAt(i);
+            if (c == '"' || c == '\r') {
+                writer.write(field, start, i - start);
+                if (c == '"') {
+                    writer.write("\"\"");
+                }
+                start = i + 1;
+            }
+        }
+        writer.write(field, start, len - start);
+        writer.write('"');
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
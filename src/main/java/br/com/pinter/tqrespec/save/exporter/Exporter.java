@@ -23,6 +23,8 @@ package br.com.pinter.tqrespec.save.exporter;
 import br.com.pinter.tqrespec.save.BlockInfo;
 import br.com.pinter.tqrespec.save.FileDataMap;
 import br.com.pinter.tqrespec.save.VariableInfo;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.File;
@@ -35,18 +37,94 @@ public class Exporter {
     private final File filename;
     private final FileDataMap fileDataMap;
     private final Map<Integer, List<Integer>> children;
+    private final boolean compact;
 
 
     public Exporter(File filename, FileDataMap fileDataMap) {
+        this(filename, fileDataMap, false);
+    }
+
+    /**
+     * @param compact write json without indentation and line breaks
+     */
+    public Exporter(File filename, FileDataMap fileDataMap, boolean compact) {
         this.filename = filename;
         this.fileDataMap = fileDataMap;
         this.children = new HashMap<>();
+        this.compact = compact;
     }
 
+    /**
+     * Writes the same json of {@link #getTree()}, without building the tree. Blocks and variables are sorted once by
+     * offset and written as they are reached, blocks are closed when the next entry belongs to an outer block.
+     */
     public void writeJson() throws IOException {
-        Node tree = getTree();
+        Map<Integer, BlockInfo> blockInfo = fileDataMap.getBlockInfo();
+        List<BlockInfo> blocks = blockInfo.values().stream().sorted(Comparator.comparingInt(BlockInfo::getStart)).toList();
+
+        //only blocks reachable from the root blocks are exported, like in getTree()
+        Set<Integer> exported = new HashSet<>();
+        List<Object> entries = new ArrayList<>();
+        for (BlockInfo b : blocks) {
+            if (b.getStart() == 0) {
+                continue;
+            }
+            if (b.getParentOffset() == -1 || exported.contains(b.getParentOffset())) {
+                exported.add(b.getStart());
+                entries.add(b);
+            }
+        }
+        if (blockInfo.containsKey(0)) {
+            exported.add(0);
+        }
+        for (BlockInfo b : blockInfo.values()) {
+            if (exported.contains(b.getStart())) {
+                entries.addAll(b.getVariables().values());
+            }
+        }
+        entries.sort(Comparator.comparingInt(Exporter::offset));
+
         ObjectMapper mapper = new ObjectMapper();
-        mapper.writerWithDefaultPrettyPrinter().writeValue(filename, tree);
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(filename, JsonEncoding.UTF8)) {
+            if (!compact) {
+                gen.useDefaultPrettyPrinter();
+            }
+            NodeSerializer serializer = new NodeSerializer();
+            Deque<Integer> open = new ArrayDeque<>();
+
+            gen.writeStartObject();
+            if (blockInfo.containsKey(0)) {
+                gen.writeFieldName("$metadata");
+                gen.writeObject(blockInfo.get(0));
+            }
+            for (Object e : entries) {
+                if (e instanceof BlockInfo b) {
+                    closeUntil(gen, open, b.getParentOffset());
+                    gen.writeFieldName("$block");
+                    gen.writeStartObject();
+                    gen.writeFieldName("$metadata");
+                    gen.writeObject(b);
+                    open.push(b.getStart());
+                } else {
+                    VariableInfo v = (VariableInfo) e;
+                    closeUntil(gen, open, v.getBlockOffset());
+                    serializer.writeField(gen, v);
+                }
+            }
+            closeUntil(gen, open, -1);
+            gen.writeEndObject();
+        }
+    }
+
+    private static int offset(Object entry) {
+        return entry instanceof BlockInfo b ? b.getStart() : ((VariableInfo) entry).getKeyOffset();
+    }
+
+    private static void closeUntil(JsonGenerator gen, Deque<Integer> open, int parent) throws IOException {
+        while (!open.isEmpty() && open.peek() != parent) {
+            open.pop();
+            gen.writeEndObject();
+        }
     }
 
     public Node getTree() {
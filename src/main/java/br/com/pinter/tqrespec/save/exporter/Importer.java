@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.exporter;
+
+import br.com.pinter.tqrespec.save.BlockInfo;
+import br.com.pinter.tqrespec.save.FileDataMap;
+import br.com.pinter.tqrespec.save.UID;
+import br.com.pinter.tqrespec.save.VariableInfo;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reads back a json written by {@link Exporter} and stages the values edited. Blocks are located by the start offset
+ * in {@code $metadata}, variables by name and by their order inside the block, so the json must come from the same
+ * file. Variables missing from the json are left untouched, only values that differ from the parsed file are staged.
+ */
+public class Importer {
+    private final File filename;
+    private final FileDataMap fileDataMap;
+
+    /**
+     * @param variable variable as parsed
+     * @param newValue copy of the variable with the value read from json
+     */
+    public record Change(VariableInfo variable, VariableInfo newValue) {
+    }
+
+    public Importer(File filename, FileDataMap fileDataMap) {
+        this.filename = filename;
+        this.fileDataMap = fileDataMap;
+    }
+
+    /**
+     * Stage all values changed in the json
+     *
+     * @return number of variables changed
+     */
+    public int importJson() throws IOException {
+        List<Change> changes = readChanges();
+        for (Change c : changes) {
+            fileDataMap.setValue(c.variable(), c.newValue());
+        }
+        return changes.size();
+    }
+
+    /**
+     * Read the json, without staging anything
+     *
+     * @return variables with a value different from the parsed file, in the order of the json
+     */
+    public List<Change> readChanges() throws IOException {
+        List<Change> changes = new ArrayList<>();
+        try (JsonParser parser = new ObjectMapper().getFactory().createParser(filename)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Invalid json, object expected at " + parser.getCurrentLocation());
+            }
+            readBlock(parser, changes);
+        }
+        return changes;
+    }
+
+    private void readBlock(JsonParser parser, List<Change> changes) throws IOException {
+        BlockInfo block = null;
+        Map<String, Integer> occurrences = new HashMap<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if (name.equals("$metadata")) {
+                block = readMetadata(parser);
+            } else if (name.equals("$block")) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("Invalid block at " + parser.getCurrentLocation());
+                }
+                readBlock(parser, changes);
+            } else {
+                if (block == null) {
+                    throw new IOException(String.format("Variable '%s' outside of a block at %s", name, parser.getCurrentLocation()));
+                }
+                int n = occurrences.merge(name, 1, Integer::sum) - 1;
+                List<VariableInfo> variables = block.getVariables().get(name);
+                if (n >= variables.size()) {
+                    throw new IOException(String.format("Variable '%s' not found in block %d", name, block.getStart()));
+                }
+                VariableInfo variable = variables.get(n);
+                VariableInfo newValue = readValue(parser, variable);
+                if (newValue != null) {
+                    changes.add(new Change(variable, newValue));
+                }
+            }
+        }
+
+        if (parser.currentToken() != JsonToken.END_OBJECT) {
+            throw new IOException("Invalid json at " + parser.getCurrentLocation());
+        }
+    }
+
+    private BlockInfo readMetadata(JsonParser parser) throws IOException {
+        int start = -1;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            if (name.equals("start")) {
+                start = parser.getIntValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        BlockInfo block = fileDataMap.getBlockInfo().get(start);
+        if (block == null) {
+            throw new IOException(String.format("Block %d not found", start));
+        }
+        return block;
+    }
+
+    /**
+     * @return copy of the variable with the new value, or null if the value is the same
+     */
+    private VariableInfo readValue(JsonParser parser, VariableInfo variable) throws IOException {
+        VariableInfo newValue = (VariableInfo) variable.deepClone();
+        if (variable.isInt()) {
+            int value = parser.getIntValue();
+            if (value == (Integer) variable.getValue()) {
+                return null;
+            }
+            newValue.setValue(value);
+        } else if (variable.isFloat()) {
+            float value = parser.getFloatValue();
+            if (Float.compare(value, (Float) variable.getValue()) == 0) {
+                return null;
+            }
+            newValue.setValue(value);
+        } else if (variable.isString()) {
+            String value = parser.getValueAsString();
+            if (Objects.equals(value, variable.getValueString())) {
+                return null;
+            }
+            newValue.setValue(value);
+        } else if (variable.isUid()) {
+            String value = parser.getValueAsString();
+            if (Objects.equals(value, variable.getValueString())) {
+                return null;
+            }
+            //an empty uid is exported as null
+            newValue.setValue(StringUtils.isBlank(value) ? new byte[16] : UID.convertUidStringToByte(value));
+        } else if (variable.isStream()) {
+            byte[] value = parser.getBinaryValue();
+            if (Arrays.equals(value, (byte[]) variable.getValue())) {
+                return null;
+            }
+            newValue.setValue(value);
+        } else {
+            parser.skipChildren();
+            return null;
+        }
+        return newValue;
+    }
+}
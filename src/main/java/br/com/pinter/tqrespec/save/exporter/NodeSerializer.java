@@ -29,7 +29,7 @@ import java.io.IOException;
 import java.util.Collections;
 
 public class NodeSerializer extends JsonSerializer<Node> {
-    private void writeField(JsonGenerator gen, VariableInfo v) throws IOException {
+    void writeField(JsonGenerator gen, VariableInfo v) throws IOException {
         if (v.isInt()) {
             gen.writeNumberField(v.getName(), (Integer) v.getValue());
         } else if (v.isFloat()) {
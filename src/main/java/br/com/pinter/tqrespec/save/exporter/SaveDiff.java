@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.exporter;
+
+import br.com.pinter.tqrespec.save.BlockInfo;
+import br.com.pinter.tqrespec.save.VariableInfo;
+import br.com.pinter.tqrespec.util.Constants;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Structural diff between two versions of a savegame. Offsets change whenever a value changes size, so blocks and
+ * variables are matched by their position in the tree instead: a block is identified by its parent and its
+ * identifying variables ({@code skillName} for skills, {@code baseName} and {@code seed} for items), so removing a
+ * skill or moving an item doesn't shift the following siblings. Blocks without them are identified by their order
+ * among the sibling blocks starting with the same variable. A variable is identified by its block, name and
+ * occurrence inside the block. Both sides are indexed once and joined by key, the cost is linear on the number of
+ * blocks and variables.
+ */
+public class SaveDiff {
+    private static final List<List<String>> IDENTITY_VARIABLES = List.of(
+            List.of(Constants.Save.SKILL_NAME),
+            List.of("baseName", "seed"));
+
+    private final List<BlockChange> blockChanges = new ArrayList<>();
+    private final List<VariableChange> variableChanges = new ArrayList<>();
+    private final Map<Integer, BlockInfo> leftBlocks;
+    private final Map<Integer, BlockInfo> rightBlocks;
+
+    public enum ChangeType {
+        ADDED,
+        REMOVED,
+        CHANGED
+    }
+
+    /**
+     * @param path  position of the block in the tree, e.g. {@code /itemPositionsSavedAsGridCoords#0/tempBool#2} or
+     *              {@code /skillName[records\\skills\\...\\skill.dbr]#0}
+     * @param left  block in the old file, null if added
+     * @param right block in the new file, null if removed
+     */
+    public record BlockChange(ChangeType type, String path, BlockInfo left, BlockInfo right) {
+    }
+
+    /**
+     * @param path  position of the block containing the variable
+     * @param left  variable in the old file, null if added
+     * @param right variable in the new file, null if removed
+     */
+    public record VariableChange(ChangeType type, String path, String name, VariableInfo left, VariableInfo right) {
+    }
+
+    private record Indexed(Map<String, BlockInfo> blocks, Map<String, VariableInfo> variables) {
+    }
+
+    /**
+     * @param left  block table of the old file, as returned by the parser
+     * @param right block table of the new file
+     */
+    public SaveDiff(Map<Integer, BlockInfo> left, Map<Integer, BlockInfo> right) {
+        this.leftBlocks = left;
+        this.rightBlocks = right;
+        compare(index(left), index(right));
+    }
+
+    public List<BlockChange> getBlockChanges() {
+        return Collections.unmodifiableList(blockChanges);
+    }
+
+    public List<VariableChange> getVariableChanges() {
+        return Collections.unmodifiableList(variableChanges);
+    }
+
+    public boolean isEmpty() {
+        return blockChanges.isEmpty() && variableChanges.isEmpty();
+    }
+
+    private static Indexed index(Map<Integer, BlockInfo> blockTable) {
+        List<BlockInfo> sorted = new ArrayList<>(blockTable.values());
+        sorted.sort(Comparator.comparingInt(BlockInfo::getStart));
+
+        Map<String, BlockInfo> blocks = new LinkedHashMap<>();
+        Map<String, VariableInfo> variables = new LinkedHashMap<>();
+        Map<Integer, String> paths = new HashMap<>();
+        Map<String, Integer> siblings = new HashMap<>();
+
+        //parents always start before their children, so the parent path is known when the child is reached
+        for (BlockInfo b : sorted) {
+            String parentPath = paths.getOrDefault(b.getParentOffset(), "");
+            List<VariableInfo> vars = new ArrayList<>(b.getVariables().values());
+            vars.sort(Comparator.comparingInt(VariableInfo::getKeyOffset));
+            String signature = vars.isEmpty() ? "" : vars.get(0).getName();
+            String identity = identity(b);
+            if (identity != null) {
+                signature = signature + "[" + identity + "]";
+            }
+            String siblingKey = parentPath + "/" + signature;
+            int n = siblings.merge(siblingKey, 1, Integer::sum) - 1;
+            String path = String.format("%s/%s#%d", parentPath, signature, n);
+            paths.put(b.getStart(), path);
+            blocks.put(path, b);
+
+            Map<String, Integer> occurrences = new HashMap<>();
+            for (VariableInfo v : vars) {
+                int o = occurrences.merge(v.getName(), 1, Integer::sum) - 1;
+                variables.put(path + ":" + v.getName() + "#" + o, v);
+            }
+        }
+        return new Indexed(blocks, variables);
+    }
+
+    /**
+     * @return values of the identifying variables of the block, null if the block has none
+     */
+    private static String identity(BlockInfo b) {
+        for (List<String> names : IDENTITY_VARIABLES) {
+            List<VariableInfo> first = b.getVariables().get(names.get(0));
+            if (first.isEmpty() || StringUtils.isBlank(first.get(0).getValueString())) {
+                continue;
+            }
+            List<String> values = new ArrayList<>();
+            for (String name : names) {
+                List<VariableInfo> v = b.getVariables().get(name);
+                values.add(v.isEmpty() ? "" : v.get(0).getValueString());
+            }
+            return String.join(",", values);
+        }
+        return null;
+    }
+
+    private static String blockPath(String variableKey) {
+        return variableKey.substring(0, variableKey.lastIndexOf(':'));
+    }
+
+    private static boolean sameValue(VariableInfo a, VariableInfo b) {
+        return a.getVariableType() == b.getVariableType() && Objects.equals(a.getValueString(), b.getValueString());
+    }
+
+    private void compare(Indexed left, Indexed right) {
+        Set<String> changedBlocks = new HashSet<>();
+        for (Map.Entry<String, VariableInfo> e : left.variables().entrySet()) {
+            VariableInfo l = e.getValue();
+            VariableInfo r = right.variables().get(e.getKey());
+            if (r == null) {
+                variableChanges.add(new VariableChange(ChangeType.REMOVED, blockPath(e.getKey()), l.getName(), l, null));
+            } else if (!sameValue(l, r)) {
+                variableChanges.add(new VariableChange(ChangeType.CHANGED, blockPath(e.getKey()), l.getName(), l, r));
+            }
+        }
+        for (Map.Entry<String, VariableInfo> e : right.variables().entrySet()) {
+            if (!left.variables().containsKey(e.getKey())) {
+                VariableInfo r = e.getValue();
+                variableChanges.add(new VariableChange(ChangeType.ADDED, blockPath(e.getKey()), r.getName(), null, r));
+            }
+        }
+        for (VariableChange c : variableChanges) {
+            changedBlocks.add(c.path());
+        }
+
+        //a block is changed only when its own variables differ, sizes of all ancestors change with any value
+        for (Map.Entry<String, BlockInfo> e : left.blocks().entrySet()) {
+            BlockInfo r = right.blocks().get(e.getKey());
+            if (r == null) {
+                blockChanges.add(new BlockChange(ChangeType.REMOVED, e.getKey(), e.getValue(), null));
+            } else if (changedBlocks.contains(e.getKey())) {
+                blockChanges.add(new BlockChange(ChangeType.CHANGED, e.getKey(), e.getValue(), r));
+            }
+        }
+        for (Map.Entry<String, BlockInfo> e : right.blocks().entrySet()) {
+            if (!left.blocks().containsKey(e.getKey())) {
+                blockChanges.add(new BlockChange(ChangeType.ADDED, e.getKey(), null, e.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Tree in the same shape of {@link Exporter#getTree()}, with only the blocks and variables removed or changed,
+     * with values of the old file. Ancestors of changed nodes are included so the position can be located.
+     */
+    public Node getLeftTree() {
+        return tree(leftBlocks, true);
+    }
+
+    /**
+     * Same as {@link #getLeftTree()}, with the blocks and variables added or changed, and values of the new file.
+     */
+    public Node getRightTree() {
+        return tree(rightBlocks, false);
+    }
+
+    private Node tree(Map<Integer, BlockInfo> blockTable, boolean left) {
+        Node root = blockTable.containsKey(0) ? new Node(blockTable.get(0)) : new Node();
+        Map<Integer, Node> nodes = new HashMap<>();
+
+        for (BlockChange c : blockChanges) {
+            BlockInfo b = left ? c.left() : c.right();
+            if (b != null) {
+                blockNode(blockTable, b, root, nodes);
+            }
+        }
+        for (VariableChange c : variableChanges) {
+            VariableInfo v = left ? c.left() : c.right();
+            if (v != null) {
+                BlockInfo b = blockTable.get(v.getBlockOffset());
+                Node parent = b != null ? blockNode(blockTable, b, root, nodes) : root;
+                parent.getChildren().add(new Node(v));
+            }
+        }
+        return root;
+    }
+
+    private Node blockNode(Map<Integer, BlockInfo> blockTable, BlockInfo b, Node root, Map<Integer, Node> nodes) {
+        Node node = nodes.get(b.getStart());
+        if (node != null) {
+            return node;
+        }
+        if (b.getStart() == 0) {
+            //header, exported as the root variables
+            nodes.put(0, root);
+            return root;
+        }
+        node = new Node(b);
+        nodes.put(b.getStart(), node);
+        BlockInfo parent = blockTable.get(b.getParentOffset());
+        Node parentNode = parent != null ? blockNode(blockTable, parent, root, nodes) : root;
+        parentNode.getChildren().add(node);
+        return node;
+    }
+
+    /**
+     * Write both sides as json, in the format of {@link Exporter#writeJson()}
+     */
+    public void writeJson(File filename) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(filename, JsonEncoding.UTF8)) {
+            gen.useDefaultPrettyPrinter();
+            gen.writeStartObject();
+            gen.writeFieldName("left");
+            mapper.writeValue(gen, getLeftTree());
+            gen.writeFieldName("right");
+            mapper.writeValue(gen, getRightTree());
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.player;
+
+import br.com.pinter.tqrespec.core.WorkerThread;
+import br.com.pinter.tqrespec.logging.Log;
+import br.com.pinter.tqrespec.save.BufferPool;
+import br.com.pinter.tqrespec.save.BulkFileReader;
+import br.com.pinter.tqrespec.tqdata.CharacterQuery;
+import br.com.pinter.tqrespec.tqdata.GameInfo;
+import br.com.pinter.tqrespec.tqdata.PlayerCharacter;
+import br.com.pinter.tqrespec.tqdata.PlayerCharacterFile;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Index of the summaries of all characters, in every save location. Summaries come from {@link CharacterSummaryCache}
+ * when the file is unchanged, the others are read and parsed in parallel. The index is used by the characters window
+ * and can be queried without any UI, see {@link #query()}.
+ */
+@Singleton
+public class CharacterRoster {
+    private static final System.Logger logger = Log.getLogger(CharacterRoster.class.getName());
+
+    @Inject
+    private GameInfo gameInfo;
+
+    @Inject
+    private Provider<PlayerLoader> playerLoaderProvider;
+
+    @Inject
+    private CharacterSummaryCache characterSummaryCache;
+
+    @Inject
+    private BufferPool bufferPool;
+
+    private final Map<Path, PlayerCharacter> characters = new LinkedHashMap<>();
+    private boolean loaded = false;
+
+    /**
+     * Load all characters, replacing the index.
+     *
+     * @param listener called for each character as soon as it's loaded, from any thread; can be null
+     * @return characters in the same order of {@link GameInfo#getPlayerCharacterList()}
+     */
+    public List<PlayerCharacter> load(Consumer<PlayerCharacter> listener) {
+        List<PlayerCharacterFile> playerCharacterFiles = gameInfo.getPlayerCharacterList();
+        PlayerCharacter[] loadedCharacters = new PlayerCharacter[playerCharacterFiles.size()];
+        Consumer<PlayerCharacter> onLoaded = listener != null ? listener : p -> {
+        };
+
+        int threads = Math.max(1, Math.min(playerCharacterFiles.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new WorkerThread(r);
+            t.setDaemon(true);
+            return t;
+        });
+        //each worker parses into its own loader, the injected CurrentPlayerData singleton is never touched
+        ThreadLocal<PlayerLoader> workerLoader = ThreadLocal.withInitial(playerLoaderProvider::get);
+
+        //characters not cached are read concurrently, and parsed by the workers as each read completes. Only the
+        //summary is kept, so the file contents are read into buffers borrowed from the pool
+        List<Integer> pendingIndexes = new ArrayList<>();
+        List<Path> pendingFiles = new ArrayList<>();
+        //attributes are taken before the file is read, a save while the file is parsed invalidates the entry
+        List<BasicFileAttributes> pendingAttributes = new ArrayList<>();
+        for (int i = 0; i < playerCharacterFiles.size(); i++) {
+            PlayerCharacterFile p = playerCharacterFiles.get(i);
+            Path playerChr = gameInfo.playerChr(p.getPlayerName(), p.getLocation());
+            PlayerCharacter cached = playerChr != null ? characterSummaryCache.get(playerChr) : null;
+            if (cached != null) {
+                loadedCharacters[i] = cached;
+                onLoaded.accept(cached);
+            } else if (playerChr != null) {
+                pendingIndexes.add(i);
+                pendingFiles.add(playerChr);
+                pendingAttributes.add(PlayerSessionCache.attributes(playerChr));
+            }
+        }
+
+        try {
+            new BulkFileReader(threads * 2, executor, bufferPool).readAll(pendingFiles, new BulkFileReader.Handler() {
+                @Override
+                public void completed(int index, Path file, ByteBuffer buffer) {
+                    characterLoaded(index, buffer);
+                }
+
+                @Override
+                public void failed(int index, Path file, Throwable e) {
+                    characterLoaded(index, null);
+                }
+
+                private void characterLoaded(int pending, ByteBuffer buffer) {
+                    int index = pendingIndexes.get(pending);
+                    PlayerCharacter playerCharacter = load(playerCharacterFiles.get(index), workerLoader.get(), buffer,
+                            pendingAttributes.get(pending));
+                    loadedCharacters[index] = playerCharacter;
+                    if (playerCharacter != null) {
+                        onLoaded.accept(playerCharacter);
+                    }
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+
+        characterSummaryCache.save();
+
+        List<PlayerCharacter> result = new ArrayList<>();
+        synchronized (this) {
+            characters.clear();
+            for (PlayerCharacter p : loadedCharacters) {
+                if (p != null) {
+                    characters.put(p.getPath(), p);
+                    result.add(p);
+                }
+            }
+            loaded = true;
+        }
+        return result;
+    }
+
+    /**
+     * Load a character again, after it was modified
+     *
+     * @return the updated summary, or null if the character couldn't be loaded
+     */
+    public PlayerCharacter refresh(PlayerCharacterFile playerCharacterFile) {
+        Path playerChr = gameInfo.playerChr(playerCharacterFile.getPlayerName(), playerCharacterFile.getLocation());
+        BasicFileAttributes attr = playerChr != null ? PlayerSessionCache.attributes(playerChr) : null;
+        PlayerCharacter playerCharacter = load(playerCharacterFile, playerLoaderProvider.get(), null, attr);
+        characterSummaryCache.save();
+        if (playerCharacter != null) {
+            synchronized (this) {
+                characters.remove(playerCharacter.getPath());
+                characters.put(playerCharacter.getPath(), playerCharacter);
+            }
+        }
+        return playerCharacter;
+    }
+
+    /**
+     * Remove a character deleted or moved
+     *
+     * @return path of the character directory
+     */
+    public Path remove(PlayerCharacterFile playerCharacterFile) {
+        Path playerPath = gameInfo.playerPath(playerCharacterFile.getPlayerName(), playerCharacterFile.getLocation());
+        characterSummaryCache.remove(gameInfo.playerChr(playerCharacterFile.getPlayerName(), playerCharacterFile.getLocation()));
+        synchronized (this) {
+            characters.remove(playerPath);
+        }
+        return playerPath;
+    }
+
+    /**
+     * @return query over a snapshot of the index, characters are loaded first if needed
+     */
+    public CharacterQuery query() {
+        synchronized (this) {
+            if (loaded) {
+                return CharacterQuery.of(characters.values());
+            }
+        }
+        return CharacterQuery.of(load(null));
+    }
+
+    /**
+     * @param data contents of Player.chr already read, or null to let the loader read it. The loader save data is
+     *             reset after the parse, so the buffer can be returned to the pool
+     * @param attr attributes of Player.chr taken before it was read
+     */
+    private PlayerCharacter load(PlayerCharacterFile p, PlayerLoader loader, ByteBuffer data, BasicFileAttributes attr) {
+        Path playerChr = gameInfo.playerChr(p.getPlayerName(), p.getLocation());
+        PlayerCharacter cached = playerChr != null ? characterSummaryCache.get(playerChr) : null;
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            PlayerCharacter playerCharacter = loader.loadCharacter(p.getPlayerName(), p.getLocation(), data);
+            if (playerChr != null && playerCharacter != null) {
+                characterSummaryCache.put(playerChr, attr, playerCharacter);
+            }
+            return playerCharacter;
+        } catch (RuntimeException e) {
+            logger.log(System.Logger.Level.ERROR, String.format("Error loading character '%s'", p));
+            return null;
+        } finally {
+            if (data != null) {
+                //data is leased from the pool and returned after this, the loader must not keep referencing it
+                loader.getSaveData().reset();
+            }
+        }
+    }
+}
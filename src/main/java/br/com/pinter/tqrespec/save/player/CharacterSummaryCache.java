@@ -0,0 +1,318 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.player;
+
+import br.com.pinter.tqdatabase.models.Skill;
+import br.com.pinter.tqrespec.core.GameNotFoundException;
+import br.com.pinter.tqrespec.logging.Log;
+import br.com.pinter.tqrespec.save.SaveLocation;
+import br.com.pinter.tqrespec.tqdata.DefaultMapTeleport;
+import br.com.pinter.tqrespec.tqdata.Db;
+import br.com.pinter.tqrespec.tqdata.GameInfo;
+import br.com.pinter.tqrespec.tqdata.MapTeleport;
+import br.com.pinter.tqrespec.tqdata.Mastery;
+import br.com.pinter.tqrespec.tqdata.PlayerCharacter;
+import br.com.pinter.tqrespec.tqdata.Txt;
+import br.com.pinter.tqrespec.util.Constants;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent cache of {@link PlayerCharacter} summaries, used by the characters list to avoid parsing unchanged
+ * savegames. Entries are keyed by Player.chr path and only valid while the file size and mtime match. Mastery and
+ * teleport names are stored already translated, so entries are also only valid for the text locale they were built.
+ */
+@Singleton
+public class CharacterSummaryCache {
+    private static final System.Logger logger = Log.getLogger(CharacterSummaryCache.class.getName());
+    private static final int FORMAT_VERSION = 2;
+
+    @Inject
+    private GameInfo gameInfo;
+
+    @Inject
+    private Db db;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+    private volatile boolean dirty = false;
+
+    private record Entry(long size, long lastModified, String locale, byte[] data) {
+    }
+
+    private Path cacheFile() {
+        return Paths.get(gameInfo.getSavePath(), Constants.CACHE_DIRECTORY, Constants.CHARACTER_CACHE_FILE);
+    }
+
+    private String gamePath() {
+        try {
+            return String.valueOf(gameInfo.getGamePath());
+        } catch (GameNotFoundException e) {
+            return "";
+        }
+    }
+
+    /**
+     * @param playerChr path of the Player.chr file
+     * @return a new instance of the cached character, or null if the file is not cached or was modified
+     */
+    public PlayerCharacter get(Path playerChr) {
+        load();
+        Entry entry = entries.get(playerChr.toString());
+        BasicFileAttributes attr = PlayerSessionCache.attributes(playerChr);
+        if (entry == null || attr == null || !entry.locale().equals(String.valueOf(Txt.locale()))
+                || entry.size() != attr.size() || entry.lastModified() != attr.lastModifiedTime().toMillis()) {
+            return null;
+        }
+
+        try {
+            return read(new DataInputStream(new ByteArrayInputStream(entry.data())));
+        } catch (IOException | RuntimeException e) {
+            logger.log(System.Logger.Level.WARNING, "Invalid cache entry for ''{0}''", playerChr);
+            entries.remove(playerChr.toString());
+            return null;
+        }
+    }
+
+    /**
+     * @param playerChr       path of the Player.chr file
+     * @param attr            attributes of the file read before it was parsed, so a save in the middle of the parse
+     *                        leaves an entry that doesn't match the file anymore
+     * @param playerCharacter character parsed from the file
+     */
+    public void put(Path playerChr, BasicFileAttributes attr, PlayerCharacter playerCharacter) {
+        load();
+        if (attr == null) {
+            return;
+        }
+
+        try {
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            write(new DataOutputStream(buf), playerCharacter);
+            entries.put(playerChr.toString(), new Entry(attr.size(), attr.lastModifiedTime().toMillis(),
+                    String.valueOf(Txt.locale()), buf.toByteArray()));
+            dirty = true;
+        } catch (IOException e) {
+            logger.log(System.Logger.Level.WARNING, "Unable to cache character ''{0}''", playerChr);
+        }
+    }
+
+    public void remove(Path playerChr) {
+        if (entries.remove(playerChr.toString()) != null) {
+            dirty = true;
+        }
+    }
+
+    private synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+
+        Path file = cacheFile();
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(gamePath())) {
+                //written by another version or for another game installation, discard
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                String locale = in.readUTF();
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                entries.put(key, new Entry(size, lastModified, locale, data));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.log(System.Logger.Level.WARNING, "Unable to read characters cache, ignoring ''{0}''", file);
+            entries.clear();
+        }
+    }
+
+    /**
+     * Write the cache to disk if modified, entries of characters that don't exist anymore are dropped.
+     */
+    public synchronized void save() {
+        entries.keySet().removeIf(k -> {
+            boolean stale = !Files.exists(Paths.get(k));
+            dirty |= stale;
+            return stale;
+        });
+        if (!dirty) {
+            return;
+        }
+
+        Path file = cacheFile();
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                List<Map.Entry<String, Entry>> snapshot = new ArrayList<>(entries.entrySet());
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(gamePath());
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> e : snapshot) {
+                    out.writeUTF(e.getKey());
+                    out.writeLong(e.getValue().size());
+                    out.writeLong(e.getValue().lastModified());
+                    out.writeUTF(e.getValue().locale());
+                    out.writeInt(e.getValue().data().length);
+                    out.write(e.getValue().data());
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            logger.log(System.Logger.Level.WARNING, "Unable to write characters cache ''{0}''", file);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private void write(DataOutputStream out, PlayerCharacter p) throws IOException {
+        writeString(out, p.getName());
+        writeString(out, p.getPath() != null ? p.getPath().toString() : null);
+        writeString(out, p.getLocation() != null ? p.getLocation().name() : null);
+        writeString(out, p.getGender() != null ? p.getGender().name() : null);
+        writeString(out, p.getCharacterClass());
+        writeString(out, p.getGreatestMonsterKilledName());
+        int[] values = {
+                p.getLevel(), p.getDifficulty(), p.getExperience(), p.getGold(),
+                p.getStatLife(), p.getStatMana(), p.getStatStr(), p.getStatInt(), p.getStatDex(),
+                p.getStatAvailableAttrPoints(), p.getStatAvailableSkillPoints(), p.getPlayTimeInSeconds(),
+                p.getNumberOfDeaths(), p.getNumberOfKills(), p.getExperienceFromKills(),
+                p.getHealthPotionsUsed(), p.getManaPotionsUsed(), p.getNumHitsReceived(), p.getNumHitsInflicted(),
+                p.getGreatestDamageInflicted(), p.getGreatestMonsterKilledLevel(),
+                p.getGreatestMonsterKilledLifeAndMana(), p.getCriticalHitsInflicted()
+        };
+        out.writeInt(values.length);
+        for (int v : values) {
+            out.writeInt(v);
+        }
+
+        List<Mastery> masteries = p.getMasteries() != null ? p.getMasteries() : List.of();
+        out.writeInt(masteries.size());
+        for (Mastery m : masteries) {
+            writeString(out, m.getDisplayName());
+            out.writeInt(m.getLevel());
+            writeString(out, m.getSkill() != null ? m.getSkill().getRecordPath() : null);
+        }
+
+        out.writeInt(p.getDefaultMapTeleports().size());
+        for (Map.Entry<Integer, List<MapTeleport>> e : p.getDefaultMapTeleports().entrySet()) {
+            out.writeInt(e.getKey());
+            out.writeInt(e.getValue().size());
+            for (MapTeleport t : e.getValue()) {
+                out.writeInt(t.getOrder());
+                writeString(out, t.getName());
+            }
+        }
+    }
+
+    private PlayerCharacter read(DataInputStream in) throws IOException {
+        PlayerCharacter p = new PlayerCharacter();
+        p.setName(readString(in));
+        String path = readString(in);
+        p.setPath(path != null ? Paths.get(path) : null);
+        String location = readString(in);
+        p.setLocation(location != null ? SaveLocation.valueOf(location) : null);
+        String gender = readString(in);
+        p.setGender(gender != null ? Gender.valueOf(gender) : null);
+        p.setCharacterClass(readString(in));
+        p.setGreatestMonsterKilledName(readString(in));
+
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        int i = 0;
+        p.setLevel(values[i++]);
+        p.setDifficulty(values[i++]);
+        p.setExperience(values[i++]);
+        p.setGold(values[i++]);
+        p.setStatLife(values[i++]);
+        p.setStatMana(values[i++]);
+        p.setStatStr(values[i++]);
+        p.setStatInt(values[i++]);
+        p.setStatDex(values[i++]);
+        p.setStatAvailableAttrPoints(values[i++]);
+        p.setStatAvailableSkillPoints(values[i++]);
+        p.setPlayTimeInSeconds(values[i++]);
+        p.setNumberOfDeaths(values[i++]);
+        p.setNumberOfKills(values[i++]);
+        p.setExperienceFromKills(values[i++]);
+        p.setHealthPotionsUsed(values[i++]);
+        p.setManaPotionsUsed(values[i++]);
+        p.setNumHitsReceived(values[i++]);
+        p.setNumHitsInflicted(values[i++]);
+        p.setGreatestDamageInflicted(values[i++]);
+        p.setGreatestMonsterKilledLevel(values[i++]);
+        p.setGreatestMonsterKilledLifeAndMana(values[i++]);
+        p.setCriticalHitsInflicted(values[i]);
+
+        int masteryCount = in.readInt();
+        p.setMasteries(new ArrayList<>());
+        for (int m = 0; m < masteryCount; m++) {
+            Mastery mastery = new Mastery();
+            mastery.setDisplayName(readString(in));
+            mastery.setLevel(in.readInt());
+            String recordPath = readString(in);
+            if (recordPath != null) {
+                Skill skill = db.skills().getSkill(recordPath, false);
+                mastery.setSkill(skill);
+            }
+            p.getMasteries().add(mastery);
+        }
+
+        int difficulties = in.readInt();
+        for (int d = 0; d < difficulties; d++) {
+            int difficulty = in.readInt();
+            int count = in.readInt();
+            List<MapTeleport> teleports = new ArrayList<>();
+            for (int t = 0; t < count; t++) {
+                MapTeleport mapTeleport = DefaultMapTeleport.get(in.readInt());
+                String name = readString(in);
+                if (mapTeleport != null) {
+                    mapTeleport.setName(name);
+                    teleports.add(mapTeleport);
+                }
+            }
+            p.getDefaultMapTeleports().put(difficulty, teleports);
+        }
+        return p;
+    }
+}
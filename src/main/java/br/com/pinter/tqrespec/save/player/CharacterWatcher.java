@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.player;
+
+import br.com.pinter.tqrespec.core.WorkerThread;
+import br.com.pinter.tqrespec.logging.Log;
+import br.com.pinter.tqrespec.save.SaveLocation;
+import br.com.pinter.tqrespec.tqdata.GameInfo;
+import br.com.pinter.tqrespec.tqdata.PlayerCharacterFile;
+import br.com.pinter.tqrespec.util.Constants;
+import com.google.inject.Inject;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches the save locations (main, user, archived and external) and reports characters added, modified or removed.
+ * Events are coalesced per character until the directory is quiet, the game writes several files on each save.
+ */
+public class CharacterWatcher {
+    private static final System.Logger logger = Log.getLogger(CharacterWatcher.class.getName());
+    private static final long QUIET_PERIOD_MS = 500;
+
+    @Inject
+    private GameInfo gameInfo;
+
+    private WatchService watchService;
+    private Thread thread;
+    private final Map<WatchKey, Registration> keys = new ConcurrentHashMap<>();
+
+    public interface Listener {
+        /**
+         * Character was created or modified
+         */
+        void characterChanged(PlayerCharacterFile playerCharacterFile);
+
+        void characterRemoved(PlayerCharacterFile playerCharacterFile);
+    }
+
+    /**
+     * @param dir        directory being watched
+     * @param location   save location of the directory
+     * @param playerName name of the character if dir is a character directory, null for a save location root
+     */
+    private record Registration(Path dir, SaveLocation location, String playerName) {
+    }
+
+    public synchronized boolean isRunning() {
+        return watchService != null;
+    }
+
+    public synchronized boolean start(Listener listener) {
+        if (watchService != null) {
+            return true;
+        }
+
+        WatchService ws;
+        try {
+            ws = FileSystems.getDefault().newWatchService();
+            watchService = ws;
+            for (SaveLocation location : SaveLocation.values()) {
+                registerRoot(ws, location);
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.log(System.Logger.Level.WARNING, "Unable to watch save directories", e);
+            stop();
+            return false;
+        }
+
+        thread = new WorkerThread(() -> run(ws, listener));
+        thread.setName("character-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    public synchronized void stop() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.log(System.Logger.Level.WARNING, Constants.ERROR_MSG_EXCEPTION, e);
+            }
+            watchService = null;
+        }
+        keys.clear();
+    }
+
+    /**
+     * @param ws watch service of the thread running, the field is replaced or cleared by {@link #stop()}
+     */
+    private void registerRoot(WatchService ws, SaveLocation location) throws IOException {
+        String root = gameInfo.locationPath(location);
+        if (root == null || !Files.isDirectory(Paths.get(root))) {
+            return;
+        }
+        Path dir = Paths.get(root);
+        keys.put(dir.register(ws, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), new Registration(dir, location, null));
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, p -> p.getFileName().toString().startsWith("_"))) {
+            for (Path p : stream) {
+                registerCharacter(ws, p, location);
+            }
+        }
+    }
+
+    private void registerCharacter(WatchService ws, Path dir, SaveLocation location) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        String playerName = dir.getFileName().toString().replaceAll("^_", "");
+        keys.put(dir.register(ws, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), new Registration(dir, location, playerName));
+    }
+
+    private void run(WatchService ws, Listener listener) {
+        Map<Path, PlayerCharacterFile> pending = new LinkedHashMap<>();
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = pending.isEmpty() ? ws.take() : ws.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    dispatch(pending, listener);
+                    pending.clear();
+                    continue;
+                }
+
+                Registration registration = keys.get(key);
+                if (registration != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        processEvent(ws, registration, event, pending);
+                    }
+                }
+                if (!key.reset()) {
+                    keys.remove(key);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            logger.log(System.Logger.Level.DEBUG, "character watcher stopped");
+        }
+    }
+
+    private void processEvent(WatchService ws, Registration registration, WatchEvent<?> event,
+                              Map<Path, PlayerCharacterFile> pending) {
+        if (event.kind() == OVERFLOW) {
+            //events were lost, report every character known
+            for (PlayerCharacterFile p : gameInfo.getPlayerCharacterList()) {
+                pending.put(gameInfo.playerPath(p.getPlayerName(), p.getLocation()), p);
+            }
+            return;
+        }
+
+        Path child = registration.dir().resolve((Path) event.context());
+
+        if (registration.playerName() != null) {
+            pending.put(registration.dir(), new PlayerCharacterFile(registration.playerName(), registration.location()));
+            return;
+        }
+
+        String name = child.getFileName().toString();
+        try {
+            if (name.startsWith("_")) {
+                if (event.kind() == ENTRY_CREATE) {
+                    registerCharacter(ws, child, registration.location());
+                }
+                pending.put(child, new PlayerCharacterFile(name.replaceAll("^_", ""), registration.location()));
+            } else if (name.equals(Constants.ARCHIVE_DIR) && event.kind() == ENTRY_CREATE) {
+                if (registration.location() == SaveLocation.MAIN) {
+                    registerRoot(ws, SaveLocation.ARCHIVEMAIN);
+                } else if (registration.location() == SaveLocation.USER) {
+                    registerRoot(ws, SaveLocation.ARCHIVEUSER);
+                }
+            }
+        } catch (IOException e) {
+            logger.log(System.Logger.Level.WARNING, "Unable to watch directory ''{0}''", child);
+        } catch (ClosedWatchServiceException e) {
+            //stopped while the event was processed, the loop ends on the next key
+            logger.log(System.Logger.Level.DEBUG, "character watcher stopped");
+        }
+    }
+
+    private void dispatch(Map<Path, PlayerCharacterFile> pending, Listener listener) {
+        for (PlayerCharacterFile p : pending.values()) {
+            Path playerChr = gameInfo.playerChr(p.getPlayerName(), p.getLocation());
+            try {
+                if (playerChr != null && Files.exists(playerChr)) {
+                    listener.characterChanged(p);
+                } else {
+                    listener.characterRemoved(p);
+                }
+            } catch (RuntimeException e) {
+                logger.log(System.Logger.Level.ERROR, Constants.ERROR_MSG_EXCEPTION, e);
+            }
+        }
+    }
+}
@@ -43,6 +43,9 @@ public class CurrentPlayerData implements FileDataHolder {
     private HeaderInfo headerInfo = new HeaderInfo();
     private ByteBuffer buffer = null;
     private SaveLocation location;
+    private long fileSize = -1;
+    private long fileLastModified = -1;
+    private volatile SkillGraph skillGraph = null;
 
     @Override
     public String getPlayerName() {
@@ -89,6 +92,14 @@ public class CurrentPlayerData implements FileDataHolder {
         this.playerChr = playerChr;
     }
 
+    /**
+     * Size and mtime of Player.chr when it was read, used to detect changes on disk
+     */
+    void setFileAttributes(long fileSize, long fileLastModified) {
+        this.fileSize = fileSize;
+        this.fileLastModified = fileLastModified;
+    }
+
     HeaderInfo getHeaderInfo() {
         return headerInfo;
     }
@@ -122,6 +133,17 @@ public class CurrentPlayerData implements FileDataHolder {
         return dataMap;
     }
 
+    /**
+     * @return skills resolved from the database, or null if the skills list changed since it was built
+     */
+    SkillGraph getSkillGraph() {
+        return skillGraph;
+    }
+
+    void setSkillGraph(SkillGraph skillGraph) {
+        this.skillGraph = skillGraph;
+    }
+
     public boolean isMissingSkills() {
         return missingSkills.get();
     }
@@ -138,6 +160,35 @@ public class CurrentPlayerData implements FileDataHolder {
         getDataMap().setPlatform(platform);
     }
 
+    /**
+     * Moves the loaded character to a session, leaving this object empty. Unlike {@link #reset()} the data map is
+     * not cleared, so the session keeps the parsed data and pending changes.
+     */
+    PlayerSessionCache.Session detach() {
+        PlayerSessionCache.Session session = null;
+        if (buffer != null && playerChr != null) {
+            session = new PlayerSessionCache.Session(playerName, playerChr, location, dataMap, headerInfo, buffer,
+                    new LinkedHashMap<>(playerSkills), missingSkills.get(), fileSize, fileLastModified);
+        }
+        this.dataMap = new FileDataMap();
+        reset();
+        return session;
+    }
+
+    void attach(PlayerSessionCache.Session session) {
+        reset();
+        this.playerName = session.getPlayerName();
+        this.playerChr = session.getPlayerChr();
+        this.location = session.getLocation();
+        this.dataMap = session.getDataMap();
+        this.headerInfo = session.getHeaderInfo();
+        this.buffer = session.getBuffer();
+        this.playerSkills.putAll(session.getPlayerSkills());
+        this.missingSkills.set(session.isMissingSkills());
+        this.fileSize = session.getSize();
+        this.fileLastModified = session.getLastModified();
+    }
+
     void reset() {
         dataMap.clear();
         this.buffer = null;
@@ -146,7 +197,10 @@ public class CurrentPlayerData implements FileDataHolder {
         this.playerName = null;
         this.location = SaveLocation.MAIN;
         this.playerSkills.clear();
+        this.skillGraph = null;
         this.missingSkills.set(false);
+        this.fileSize = -1;
+        this.fileLastModified = -1;
     }
 
 
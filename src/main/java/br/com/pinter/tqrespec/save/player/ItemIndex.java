@@ -0,0 +1,400 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.player;
+
+import br.com.pinter.tqrespec.core.GameNotFoundException;
+import br.com.pinter.tqrespec.core.WorkerThread;
+import br.com.pinter.tqrespec.logging.Log;
+import br.com.pinter.tqrespec.save.BlockInfo;
+import br.com.pinter.tqrespec.save.BufferPool;
+import br.com.pinter.tqrespec.save.BulkFileReader;
+import br.com.pinter.tqrespec.save.FileParser;
+import br.com.pinter.tqrespec.save.SaveLocation;
+import br.com.pinter.tqrespec.save.VariableInfo;
+import br.com.pinter.tqrespec.save.stash.StashParser;
+import br.com.pinter.tqrespec.tqdata.GameInfo;
+import br.com.pinter.tqrespec.tqdata.PlayerCharacterFile;
+import br.com.pinter.tqrespec.util.Constants;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Inverted index of the items of all characters, from item record path (base item, prefix, suffix and relics) to
+ * where the item is: character, container and position. Items are read from Player.chr (equipment and inventory
+ * sacks) and winsys.dxb (stash). The index is persisted, {@link #update()} only parses files modified since.
+ */
+@Singleton
+public class ItemIndex {
+    private static final System.Logger logger = Log.getLogger(ItemIndex.class.getName());
+    private static final int FORMAT_VERSION = 1;
+    private static final String EQUIPMENT_VARIABLE = "equipmentCtrlIOStreamVersion";
+    private static final String[] ITEM_VARIABLES = {"baseName", "prefixName", "suffixName", "relicName", "relicName2"};
+
+    @Inject
+    private GameInfo gameInfo;
+
+    @Inject
+    private BufferPool bufferPool;
+
+    //items of each file indexed, keyed by file path
+    private final Map<Path, FileEntry> files = new ConcurrentHashMap<>();
+    private volatile Map<String, List<ItemLocation>> index = Map.of();
+    private boolean loaded = false;
+    private boolean dirty = false;
+
+    public enum Container {
+        EQUIPMENT,
+        INVENTORY,
+        STASH,
+        OTHER
+    }
+
+    /**
+     * @param container      where the item is stored
+     * @param containerIndex number of the inventory sack, 0 for other containers
+     * @param x              column of the item, or the slot for equipment
+     * @param y              row of the item, -1 if not available
+     */
+    public record ItemLocation(String playerName, SaveLocation location, Container container, int containerIndex,
+                               int x, int y) {
+    }
+
+    private record ItemRef(String recordPath, ItemLocation location) {
+    }
+
+    private record FileEntry(long size, long lastModified, List<ItemRef> items) {
+    }
+
+    private record PendingFile(Path file, PlayerCharacterFile character, long size, long lastModified) {
+    }
+
+    private static String normalize(String recordPath) {
+        return recordPath.toLowerCase(Locale.ROOT).replace('/', '\\');
+    }
+
+    /**
+     * @param recordPath record path of the item, prefix, suffix or relic
+     * @return where the record is used, empty if not found
+     */
+    public List<ItemLocation> find(String recordPath) {
+        return index.getOrDefault(normalize(recordPath), List.of());
+    }
+
+    /**
+     * Index characters modified since the last update, removing the ones that don't exist anymore
+     */
+    public synchronized void update() {
+        load();
+
+        List<PendingFile> pending = new ArrayList<>();
+        Map<Path, Boolean> existing = new HashMap<>();
+        for (PlayerCharacterFile p : gameInfo.getPlayerCharacterList()) {
+            Path playerChr = gameInfo.playerChr(p.getPlayerName(), p.getLocation());
+            if (playerChr == null) {
+                continue;
+            }
+            for (Path file : List.of(playerChr, playerChr.resolveSibling(Constants.STASH_FILE))) {
+                BasicFileAttributes attr = PlayerSessionCache.attributes(file);
+                if (attr == null) {
+                    continue;
+                }
+                existing.put(file, true);
+                FileEntry entry = files.get(file);
+                if (entry == null || entry.size() != attr.size() || entry.lastModified() != attr.lastModifiedTime().toMillis()) {
+                    pending.add(new PendingFile(file, p, attr.size(), attr.lastModifiedTime().toMillis()));
+                }
+            }
+        }
+        dirty |= files.keySet().removeIf(f -> !existing.containsKey(f));
+
+        if (!pending.isEmpty()) {
+            indexFiles(pending);
+            dirty = true;
+        }
+        if (dirty || index.isEmpty()) {
+            rebuild();
+        }
+        save();
+    }
+
+    private void indexFiles(List<PendingFile> pending) {
+        int threads = Math.max(1, Math.min(pending.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new WorkerThread(r);
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            new BulkFileReader(threads * 2, executor, bufferPool).readAll(pending.stream().map(PendingFile::file).toList(),
+                    new BulkFileReader.Handler() {
+                        @Override
+                        public void completed(int index, Path file, ByteBuffer buffer) {
+                            PendingFile p = pending.get(index);
+                            try {
+                                List<ItemRef> items = parse(p, buffer);
+                                files.put(file, new FileEntry(p.size(), p.lastModified(), items));
+                            } catch (RuntimeException e) {
+                                logger.log(System.Logger.Level.WARNING, "Unable to index items from ''{0}''", file);
+                                files.remove(file);
+                            }
+                        }
+
+                        @Override
+                        public void failed(int index, Path file, Throwable e) {
+                            files.remove(file);
+                        }
+                    });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private List<ItemRef> parse(PendingFile p, ByteBuffer buffer) {
+        PlayerCharacterFile character = p.character();
+        boolean stash = p.file().getFileName().toString().equals(Constants.STASH_FILE);
+        FileParser parser = stash
+                ? new StashParser(p.file().getParent().toString())
+                : new PlayerParser(p.file().toFile(), character.getPlayerName());
+        parser.setInput(buffer);
+        parser.parse();
+        return items(parser.getBlockInfo(), character, stash);
+    }
+
+    /**
+     * Item blocks are the ones with a baseName. The container is found from the ancestors of the block:
+     * <ul>
+     * <li>inventory sacks are the children of the block with {@code numberOfSacks}, each item inside a sack is wrapped
+     * in a block with its {@code pointX} and {@code pointY};</li>
+     * <li>equipment slot is the order of the item inside the block with {@code equipmentCtrlIOStreamVersion}, counting
+     * the empty slots and the weapons of the alternate sets;</li>
+     * <li>stash items are all in the same block, followed by {@code xOffset} and {@code yOffset} in the same order,
+     * stored as floats.</li>
+     * </ul>
+     */
+    private static List<ItemRef> items(Map<Integer, BlockInfo> blocks, PlayerCharacterFile character, boolean stash) {
+        List<BlockInfo> sorted = new ArrayList<>(blocks.values());
+        sorted.sort(Comparator.comparingInt(BlockInfo::getStart));
+
+        Map<Integer, Integer> sacks = new HashMap<>();
+        //slot of each equipment item, and number of slots found in each equipment block
+        Map<Integer, Integer> equipmentSlots = new HashMap<>();
+        Map<Integer, Integer> slotCount = new HashMap<>();
+        Map<Integer, List<BlockInfo>> itemsByParent = new LinkedHashMap<>();
+        for (BlockInfo b : sorted) {
+            BlockInfo parent = blocks.get(b.getParentOffset());
+            if (parent != null && parent.getVariables().containsKey("numberOfSacks")) {
+                sacks.put(b.getStart(), sacks.size());
+            }
+            if (b.getVariables().containsKey("baseName")) {
+                itemsByParent.computeIfAbsent(b.getParentOffset(), k -> new ArrayList<>()).add(b);
+                BlockInfo equipment = equipmentAncestor(blocks, b);
+                if (equipment != null) {
+                    equipmentSlots.put(b.getStart(), slotCount.merge(equipment.getStart(), 1, Integer::sum) - 1);
+                }
+            }
+        }
+
+        List<ItemRef> ret = new ArrayList<>();
+        for (Map.Entry<Integer, List<BlockInfo>> e : itemsByParent.entrySet()) {
+            BlockInfo parent = blocks.get(e.getKey());
+            List<VariableInfo> xs = List.of();
+            List<VariableInfo> ys = List.of();
+            if (parent != null) {
+                xs = sortedByOffset(parent.getVariables().get(stash ? "xOffset" : "pointX"));
+                ys = sortedByOffset(parent.getVariables().get(stash ? "yOffset" : "pointY"));
+            }
+
+            Container container = Container.OTHER;
+            int containerIndex = 0;
+            if (stash) {
+                container = Container.STASH;
+            } else {
+                for (BlockInfo a = parent; a != null; a = blocks.get(a.getParentOffset())) {
+                    if (a.getVariables().containsKey(EQUIPMENT_VARIABLE)) {
+                        container = Container.EQUIPMENT;
+                        break;
+                    }
+                    if (sacks.containsKey(a.getStart())) {
+                        container = Container.INVENTORY;
+                        containerIndex = sacks.get(a.getStart());
+                        break;
+                    }
+                }
+            }
+
+            List<BlockInfo> items = e.getValue();
+            for (int i = 0; i < items.size(); i++) {
+                int x = i;
+                int y = -1;
+                if (container == Container.EQUIPMENT) {
+                    x = equipmentSlots.get(items.get(i).getStart());
+                } else if (i < xs.size() && i < ys.size()) {
+                    x = coordinate(xs.get(i), stash);
+                    y = coordinate(ys.get(i), stash);
+                }
+                ItemLocation location = new ItemLocation(character.getPlayerName(), character.getLocation(),
+                        container, containerIndex, x, y);
+                for (String var : ITEM_VARIABLES) {
+                    for (VariableInfo v : items.get(i).getVariables().get(var)) {
+                        if (v.isString() && v.getValue() != null && !((String) v.getValue()).isBlank()) {
+                            ret.add(new ItemRef(normalize((String) v.getValue()), location));
+                        }
+                    }
+                }
+            }
+        }
+        return ret;
+    }
+
+    private static BlockInfo equipmentAncestor(Map<Integer, BlockInfo> blocks, BlockInfo block) {
+        for (BlockInfo a = blocks.get(block.getParentOffset()); a != null; a = blocks.get(a.getParentOffset())) {
+            if (a.getVariables().containsKey(EQUIPMENT_VARIABLE)) {
+                return a;
+            }
+        }
+        return null;
+    }
+
+    private static List<VariableInfo> sortedByOffset(List<VariableInfo> variables) {
+        List<VariableInfo> ret = new ArrayList<>(variables);
+        ret.sort(Comparator.comparingInt(VariableInfo::getKeyOffset));
+        return ret;
+    }
+
+    private static int coordinate(VariableInfo v, boolean stash) {
+        if (v.isFloat()) {
+            return Math.round((Float) v.getValue());
+        }
+        int value = (Integer) v.getValue();
+        //stash coordinates are floats, the parser reads them as int
+        return stash ? Math.round(Float.intBitsToFloat(value)) : value;
+    }
+
+    private void rebuild() {
+        Map<String, List<ItemLocation>> newIndex = new HashMap<>();
+        for (FileEntry entry : files.values()) {
+            for (ItemRef ref : entry.items()) {
+                newIndex.computeIfAbsent(ref.recordPath(), k -> new ArrayList<>()).add(ref.location());
+            }
+        }
+        newIndex.replaceAll((k, v) -> List.copyOf(v));
+        index = newIndex;
+    }
+
+    private Path indexFile() {
+        return Paths.get(gameInfo.getSavePath(), Constants.CACHE_DIRECTORY, Constants.ITEM_INDEX_FILE);
+    }
+
+    private String gamePath() {
+        try {
+            return String.valueOf(gameInfo.getGamePath());
+        } catch (GameNotFoundException e) {
+            return "";
+        }
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+
+        Path file = indexFile();
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(gamePath())) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Path path = Paths.get(in.readUTF());
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                String playerName = in.readUTF();
+                SaveLocation location = SaveLocation.valueOf(in.readUTF());
+                int items = in.readInt();
+                List<ItemRef> refs = new ArrayList<>(items);
+                for (int j = 0; j < items; j++) {
+                    String recordPath = in.readUTF();
+                    Container container = Container.values()[in.readByte()];
+                    refs.add(new ItemRef(recordPath, new ItemLocation(playerName, location, container,
+                            in.readInt(), in.readInt(), in.readInt())));
+                }
+                files.put(path, new FileEntry(size, lastModified, refs));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.log(System.Logger.Level.WARNING, "Unable to read items index, ignoring ''{0}''", file);
+            files.clear();
+        }
+    }
+
+    private void save() {
+        if (!dirty) {
+            return;
+        }
+
+        Path file = indexFile();
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                List<Map.Entry<Path, FileEntry>> snapshot = new ArrayList<>(files.entrySet());
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(gamePath());
+                out.writeInt(snapshot.size());
+                for (Map.Entry<Path, FileEntry> e : snapshot) {
+                    List<ItemRef> items = e.getValue().items();
+                    //all items of a file belong to the same character
+                    ItemLocation first = items.isEmpty() ? null : items.get(0).location();
+                    out.writeUTF(e.getKey().toString());
+                    out.writeLong(e.getValue().size());
+                    out.writeLong(e.getValue().lastModified());
+                    out.writeUTF(first != null ? first.playerName() : "");
+                    out.writeUTF(first != null ? first.location().name() : SaveLocation.MAIN.name());
+                    out.writeInt(items.size());
+                    for (ItemRef ref : items) {
+                        out.writeUTF(ref.recordPath());
+                        out.writeByte(ref.location().container().ordinal());
+                        out.writeInt(ref.location().containerIndex());
+                        out.writeInt(ref.location().x());
+                        out.writeInt(ref.location().y());
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            logger.log(System.Logger.Level.WARNING, "Unable to write items index ''{0}''", file);
+        }
+    }
+}
@@ -34,7 +34,9 @@ import com.google.inject.Inject;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.File;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -42,6 +44,24 @@ import java.util.stream.Collectors;
 
 public class Player {
     private static final System.Logger logger = Log.getLogger(Player.class);
+    static final VariableProjection<PlayerCharacter> CHARACTER_PROJECTION = VariableProjection.<PlayerCharacter>builder()
+            .stringVar("myPlayerName", PlayerCharacter::setName)
+            .intVar("currentStats.experiencePoints", PlayerCharacter::setExperience)
+            .intVar("currentStats.charLevel", PlayerCharacter::setLevel)
+            .intVar("money", PlayerCharacter::setGold)
+            .intVar("modifierPoints", PlayerCharacter::setStatAvailableAttrPoints)
+            .intVar(Constants.Save.SKILL_POINTS, PlayerCharacter::setStatAvailableSkillPoints)
+            .intVar("playTimeInSeconds", PlayerCharacter::setPlayTimeInSeconds)
+            .intVar("numberOfDeaths", PlayerCharacter::setNumberOfDeaths)
+            .intVar("numberOfKills", PlayerCharacter::setNumberOfKills)
+            .intVar("experienceFromKills", PlayerCharacter::setExperienceFromKills)
+            .intVar("healthPotionsUsed", PlayerCharacter::setHealthPotionsUsed)
+            .intVar("manaPotionsUsed", PlayerCharacter::setManaPotionsUsed)
+            .intVar("numHitsReceived", PlayerCharacter::setNumHitsReceived)
+            .intVar("numHitsInflicted", PlayerCharacter::setNumHitsInflicted)
+            .floatVar("greatestDamageInflicted", (p, v) -> p.setGreatestDamageInflicted(v.intValue()))
+            .intVar("criticalHitsInflicted", PlayerCharacter::setCriticalHitsInflicted)
+            .build();
 
     @Inject
     private GameInfo gameInfo;
@@ -55,6 +75,9 @@ public class Player {
     @Inject
     private CurrentPlayerData saveData;
 
+    @Inject
+    private PlayerSessionCache sessionCache;
+
     public CurrentPlayerData getSaveData() {
         return saveData;
     }
@@ -63,34 +86,90 @@ public class Player {
         reset();
     }
 
+    /**
+     * When enabled, the character being replaced by {@link #loadPlayer(String, SaveLocation)} is kept parsed in
+     * {@link PlayerSessionCache}, and loaded again from there if still unmodified on disk.
+     */
+    protected boolean isSessionCacheEnabled() {
+        return true;
+    }
+
     public boolean loadPlayer(String playerName, SaveLocation saveLocation) {
+        return loadPlayer(playerName, saveLocation, null, null);
+    }
+
+    /**
+     * Load the character and build its summary in the same pass. Variables from {@link #CHARACTER_PROJECTION} are
+     * filled by the parser, the remaining fields (attributes from temp block, masteries, teleports) are resolved after.
+     *
+     * @return the character summary, or null if the character wasn't loaded
+     */
+    public PlayerCharacter loadCharacter(String playerName, SaveLocation saveLocation) {
+        return loadCharacter(playerName, saveLocation, null);
+    }
+
+    /**
+     * Same as {@link #loadCharacter(String, SaveLocation)}, parsing contents of Player.chr already read by the caller.
+     *
+     * @param data whole contents of Player.chr, or null to read the file
+     */
+    public PlayerCharacter loadCharacter(String playerName, SaveLocation saveLocation, ByteBuffer data) {
+        PlayerCharacter playerCharacter = new PlayerCharacter();
+        if (!loadPlayer(playerName, saveLocation, CHARACTER_PROJECTION.bind(playerCharacter), data)) {
+            return null;
+        }
+        fillCharacter(playerCharacter);
+        return playerCharacter;
+    }
+
+    private boolean loadPlayer(String playerName, SaveLocation saveLocation, VariableProjection.Binding<?> projection,
+                               ByteBuffer data) {
         if (State.get().getSaveInProgress() != null && State.get().getSaveInProgress()) {
             return false;
         }
 
         try {
+            Path playerChrPath = gameInfo.playerChr(playerName, saveLocation);
+
+            boolean useSession = isSessionCacheEnabled() && projection == null;
+            if (useSession) {
+                sessionCache.put(getSaveData().detach());
+            }
+
             prepareSaveData();
 
-            Path playerChrPath;
+            if (useSession) {
+                PlayerSessionCache.Session session = sessionCache.take(playerChrPath);
+                if (session != null) {
+                    logger.log(System.Logger.Level.INFO, "Character ''{0}'' restored from session", playerChrPath);
+                    getSaveData().attach(session);
+                    return true;
+                }
+            }
 
             getSaveData().setPlayerName(playerName);
             getSaveData().setLocation(saveLocation);
-            playerChrPath = gameInfo.playerChr(playerName, saveLocation);
 
             logger.log(System.Logger.Level.INFO, "Loading character ''{0}''", playerChrPath);
 
 
             getSaveData().setPlayerChr(playerChrPath);
+            BasicFileAttributes attr = PlayerSessionCache.attributes(playerChrPath);
+            if (attr != null) {
+                getSaveData().setFileAttributes(attr.size(), attr.lastModifiedTime().toMillis());
+            }
             PlayerParser playerParser = new PlayerParser(
                     new File(getSaveData().getPlayerChr().toString()),
                     playerName);
+            playerParser.setProjection(projection);
+            playerParser.setInput(data);
 
             getSaveData().setBuffer(playerParser.load());
             getSaveData().setPlatform(playerParser.getDetectedPlatform());
             getSaveData().getDataMap().setBlockInfo(playerParser.getBlockInfo());
             getSaveData().setHeaderInfo(playerParser.getHeaderInfo());
             getSaveData().getDataMap().setVariableLocation(playerParser.getVariableLocation());
-            saveData.getDataMap().validate();
+            getSaveData().getDataMap().validate();
             prepareSkillsList();
         } catch (RuntimeException e) {
             reset();
@@ -102,25 +181,13 @@ public class Player {
 
     public PlayerCharacter getCharacter() {
         PlayerCharacter playerCharacter = new PlayerCharacter();
-        playerCharacter.setPath(getSaveData().getPlayerPath());
-        playerCharacter.setLocation(getSaveData().getLocation());
-        playerCharacter.setGender(getGender());
-        playerCharacter.setCharacterClass(getPlayerClassName());
-        playerCharacter.setDifficulty(getDifficulty());
         playerCharacter.setExperience(getXp());
         playerCharacter.setGold(getMoney());
         playerCharacter.setLevel(getLevel());
         playerCharacter.setName(getCharacterName());
         playerCharacter.setStatAvailableAttrPoints(getModifierPoints());
-        playerCharacter.setStatDex(getDex());
-        playerCharacter.setStatInt(getInt());
-        playerCharacter.setStatStr(getStr());
-        playerCharacter.setStatLife(getLife());
-        playerCharacter.setStatMana(getMana());
-        playerCharacter.setMasteries(new ArrayList<>());
         playerCharacter.setStatAvailableSkillPoints(getAvailableSkillPoints());
         playerCharacter.setPlayTimeInSeconds(getStatPlayTimeInSeconds());
-        playerCharacter.setGreatestMonsterKilledName(getStatGreatestMonsterKilledName());
         playerCharacter.setNumberOfDeaths(getStatNumberOfDeaths());
         playerCharacter.setNumberOfKills(getStatNumberOfKills());
         playerCharacter.setExperienceFromKills(getStatExperienceFromKills());
@@ -129,8 +196,25 @@ public class Player {
         playerCharacter.setNumHitsInflicted(getStatNumHitsInflicted());
         playerCharacter.setNumHitsReceived(getStatNumHitsReceived());
         playerCharacter.setGreatestDamageInflicted(getStatGreatestDamageInflicted());
-        playerCharacter.setGreatestMonsterKilledLevel(getStatGreatestMonsterKilledLevel());
         playerCharacter.setCriticalHitsInflicted(getStatCriticalHitsInflicted());
+        fillCharacter(playerCharacter);
+        return playerCharacter;
+    }
+
+    private void fillCharacter(PlayerCharacter playerCharacter) {
+        playerCharacter.setPath(getSaveData().getPlayerPath());
+        playerCharacter.setLocation(getSaveData().getLocation());
+        playerCharacter.setGender(getGender());
+        playerCharacter.setCharacterClass(getPlayerClassName());
+        playerCharacter.setDifficulty(getDifficulty());
+        playerCharacter.setStatDex(getDex());
+        playerCharacter.setStatInt(getInt());
+        playerCharacter.setStatStr(getStr());
+        playerCharacter.setStatLife(getLife());
+        playerCharacter.setStatMana(getMana());
+        playerCharacter.setMasteries(new ArrayList<>());
+        playerCharacter.setGreatestMonsterKilledName(getStatGreatestMonsterKilledName());
+        playerCharacter.setGreatestMonsterKilledLevel(getStatGreatestMonsterKilledLevel());
         playerCharacter.getDefaultMapTeleports().put(0, getDefaultMapTeleports(0));
         playerCharacter.getDefaultMapTeleports().put(1, getDefaultMapTeleports(1));
         playerCharacter.getDefaultMapTeleports().put(2, getDefaultMapTeleports(2));
@@ -154,11 +238,10 @@ public class Player {
                 playerCharacter.getMasteries().add(mastery);
             }
         }
-
-        return playerCharacter;
     }
 
     private void prepareSkillsList() {
+        getSaveData().setSkillGraph(null);
         getSaveData().getPlayerSkills().clear();
         for (String v : getSaveData().getDataMap().getVariableLocation().keySet()) {
             if (!v.startsWith(Database.Variables.PREFIX_SKILL_NAME)) {
@@ -324,24 +407,31 @@ public class Player {
         }
     }
 
+    private SkillGraph getSkillGraph() {
+        //may prepare the skills list again, discarding the graph
+        Map<String, PlayerSkill> playerSkills = getPlayerSkills();
+        SkillGraph graph = getSaveData().getSkillGraph();
+        if (graph == null) {
+            synchronized (playerSkills) {
+                graph = new SkillGraph(playerSkills.values(), name -> db.skills().getSkill(name, false));
+            }
+            getSaveData().setSkillGraph(graph);
+        }
+        return graph;
+    }
+
     public List<Skill> getPlayerMasteries() {
         List<Skill> ret = new ArrayList<>();
-        for (PlayerSkill sb : getPlayerSkills().values()) {
-            Skill skill = db.skills().getSkill(sb.getSkillName(), false);
-            if (skill != null && skill.isMastery()) {
-                ret.add(skill);
-            }
+        for (SkillGraph.Node node : getSkillGraph().getMasteries()) {
+            ret.add(node.skill());
         }
         return ret;
     }
 
     public List<Skill> getPlayerSkillsFromMastery(Skill mastery) {
         List<Skill> ret = new ArrayList<>();
-        for (PlayerSkill sb : getPlayerSkills().values()) {
-            Skill skill = db.skills().getSkill(sb.getSkillName(), false);
-            if (skill != null && !skill.isMastery() && mastery.getRecordPath().equals(skill.getParentPath())) {
-                ret.add(skill);
-            }
+        for (SkillGraph.Node node : getSkillGraph().getSkills(mastery.getRecordPath())) {
+            ret.add(node.skill());
         }
         return ret;
     }
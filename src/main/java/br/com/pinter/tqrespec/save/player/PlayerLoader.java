@@ -32,4 +32,9 @@ public class PlayerLoader extends Player {
     public CurrentPlayerData getSaveData() {
         return saveDataPrivate;
     }
+
+    @Override
+    protected boolean isSessionCacheEnabled() {
+        return false;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.player;
+
+import br.com.pinter.tqrespec.core.State;
+import br.com.pinter.tqrespec.core.WorkerThread;
+import br.com.pinter.tqrespec.logging.Log;
+import br.com.pinter.tqrespec.tqdata.GameInfo;
+import br.com.pinter.tqrespec.tqdata.PlayerCharacterFile;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import org.apache.commons.lang3.BooleanUtils;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Parses characters the user is likely to select next (hovered in the combo, recently used) in a low priority
+ * background thread, and leaves them in {@link PlayerSessionCache} so {@link Player#loadPlayer} finds them already
+ * parsed. Prefetches are delayed a little so the mouse passing over the list doesn't start a parse for every item, and
+ * requests not started yet are cancelled when a new set of characters is requested.
+ */
+@Singleton
+public class PlayerPrefetcher {
+    private static final System.Logger logger = Log.getLogger(PlayerPrefetcher.class.getName());
+    private static final long DELAY_MS = 150;
+
+    @Inject
+    private Provider<PlayerLoader> playerLoaderProvider;
+
+    @Inject
+    private GameInfo gameInfo;
+
+    @Inject
+    private PlayerSessionCache sessionCache;
+
+    private final Map<Path, Prefetch> pending = new HashMap<>();
+    private ScheduledThreadPoolExecutor executor;
+
+    private record Prefetch(ScheduledFuture<?> future, AtomicBoolean started) {
+    }
+
+    private synchronized ScheduledThreadPoolExecutor executor() {
+        if (executor == null) {
+            executor = new ScheduledThreadPoolExecutor(1, r -> {
+                WorkerThread t = new WorkerThread(r);
+                t.setName("character-prefetch");
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+        }
+        return executor;
+    }
+
+    /**
+     * Replace the characters being prefetched. Requests for characters not in the list are cancelled if not started,
+     * characters already parsed are skipped.
+     *
+     * @param characters characters in order of priority
+     */
+    public synchronized void prefetch(List<PlayerCharacterFile> characters) {
+        Map<Path, PlayerCharacterFile> wanted = new LinkedHashMap<>();
+        for (PlayerCharacterFile p : characters) {
+            Path playerChr = gameInfo.playerChr(p.getPlayerName(), p.getLocation());
+            if (playerChr != null && !sessionCache.contains(playerChr)) {
+                wanted.put(playerChr, p);
+            }
+        }
+
+        Iterator<Map.Entry<Path, Prefetch>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, Prefetch> e = it.next();
+            if (!wanted.containsKey(e.getKey()) && !e.getValue().started().get()) {
+                e.getValue().future().cancel(false);
+                it.remove();
+            }
+        }
+
+        long delay = DELAY_MS;
+        for (Map.Entry<Path, PlayerCharacterFile> e : wanted.entrySet()) {
+            if (pending.containsKey(e.getKey())) {
+                continue;
+            }
+            AtomicBoolean started = new AtomicBoolean(false);
+            Path playerChr = e.getKey();
+            PlayerCharacterFile playerCharacterFile = e.getValue();
+            ScheduledFuture<?> future = executor().schedule(() -> {
+                started.set(true);
+                load(playerCharacterFile, playerChr);
+            }, delay, TimeUnit.MILLISECONDS);
+            pending.put(playerChr, new Prefetch(future, started));
+            delay += DELAY_MS;
+        }
+    }
+
+    /**
+     * Cancel all prefetches, except the one of the character being loaded, which is awaited if already running.
+     * Should be called before loading a character in the main window.
+     */
+    public void await(PlayerCharacterFile playerCharacterFile) {
+        Path playerChr = gameInfo.playerChr(playerCharacterFile.getPlayerName(), playerCharacterFile.getLocation());
+        Prefetch prefetch;
+        synchronized (this) {
+            prefetch = pending.remove(playerChr);
+            cancel();
+        }
+        if (prefetch == null) {
+            return;
+        }
+        if (!prefetch.started().get()) {
+            prefetch.future().cancel(false);
+            return;
+        }
+
+        try {
+            prefetch.future().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            logger.log(System.Logger.Level.DEBUG, "prefetch of ''{0}'' failed", playerChr);
+        }
+    }
+
+    /**
+     * Cancel prefetches not started yet. Running ones are kept, so {@link #await} can still join them, and are removed
+     * when they finish.
+     */
+    public synchronized void cancel() {
+        Iterator<Prefetch> it = pending.values().iterator();
+        while (it.hasNext()) {
+            Prefetch p = it.next();
+            //cancel fails if the task was picked up by the executor and didn't set the flag yet
+            if (!p.started().get() && p.future().cancel(false)) {
+                it.remove();
+            }
+        }
+    }
+
+    private void load(PlayerCharacterFile playerCharacterFile, Path playerChr) {
+        try {
+            if (BooleanUtils.isTrue(State.get().getGameRunning()) || sessionCache.contains(playerChr)) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            PlayerLoader loader = playerLoaderProvider.get();
+            if (loader.loadPlayer(playerCharacterFile.getPlayerName(), playerCharacterFile.getLocation())
+                    && sessionCache.offer(loader.getSaveData().detach())) {
+                logger.log(System.Logger.Level.DEBUG, "Character ''{0}'' prefetched in {1}ms", playerChr,
+                        System.currentTimeMillis() - start);
+            }
+        } catch (RuntimeException e) {
+            logger.log(System.Logger.Level.WARNING, "Unable to prefetch character ''{0}''", playerChr);
+        } finally {
+            synchronized (this) {
+                Prefetch p = pending.get(playerChr);
+                if (p != null && p.started().get()) {
+                    pending.remove(playerChr);
+                }
+            }
+        }
+    }
+}
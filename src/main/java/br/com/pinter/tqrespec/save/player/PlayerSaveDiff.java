@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.player;
+
+import br.com.pinter.tqrespec.core.UnhandledRuntimeException;
+import br.com.pinter.tqrespec.core.WorkerThread;
+import br.com.pinter.tqrespec.save.BlockInfo;
+import br.com.pinter.tqrespec.save.FileParser;
+import br.com.pinter.tqrespec.save.exporter.SaveDiff;
+import br.com.pinter.tqrespec.save.stash.StashParser;
+import br.com.pinter.tqrespec.util.Constants;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compare two copies of a Player.chr or stash file, e.g. the current save and the one inside a backup zip. Paths
+ * may come from any filesystem, including zip filesystems. Both files are parsed at the same time.
+ */
+public final class PlayerSaveDiff {
+    private PlayerSaveDiff() {
+    }
+
+    public static SaveDiff compare(Path left, Path right) throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new WorkerThread(r);
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            Future<Map<Integer, BlockInfo>> leftBlocks = executor.submit(() -> parse(left));
+            Map<Integer, BlockInfo> rightBlocks = parse(right);
+            return new SaveDiff(leftBlocks.get(), rightBlocks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnhandledRuntimeException("Interrupted comparing " + left, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new UnhandledRuntimeException("Error parsing " + left, e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Map<Integer, BlockInfo> parse(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        FileParser parser;
+        if (fileName.equalsIgnoreCase(Constants.STASH_FILE) || fileName.equalsIgnoreCase(Constants.STASH_FILE_BACKUP)) {
+            parser = new StashParser(String.valueOf(file.getParent()));
+        } else {
+            Path playerPath = file.getParent();
+            String playerName = playerPath != null && playerPath.getFileName() != null
+                    ? playerPath.getFileName().toString() : fileName;
+            //contents are set below, the file is never opened by the parser, so a zip entry works too
+            parser = new PlayerParser(new File(file.toString()), playerName);
+        }
+        parser.setInput(ByteBuffer.wrap(Files.readAllBytes(file)));
+        parser.parse();
+        return parser.getBlockInfo();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.player;
+
+import br.com.pinter.tqrespec.logging.Log;
+import br.com.pinter.tqrespec.save.FileDataMap;
+import br.com.pinter.tqrespec.save.SaveLocation;
+import com.google.inject.Singleton;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps characters recently loaded in the main window already parsed, so switching back to one of them doesn't need to
+ * read and parse the file again. Each entry keeps its own pending changes. When the memory budget is exceeded entries
+ * are evicted in least recently used order, the ones without changes first. Entries with changes dropped, by the
+ * budget or because the file was modified on disk, are reported by {@link #takeDiscarded()} so the user can be warned.
+ */
+@Singleton
+public class PlayerSessionCache {
+    private static final System.Logger logger = Log.getLogger(PlayerSessionCache.class.getName());
+    //parsed blocks and variables take a few times the size of the raw file
+    private static final int PARSED_SIZE_FACTOR = 6;
+    private static final long MAX_MEMORY = Math.min(Runtime.getRuntime().maxMemory() / 8, 256L * 1024 * 1024);
+
+    private final Map<Path, Session> sessions = new LinkedHashMap<>(16, 0.75f, true);
+    //names of characters whose pending changes were dropped, not reported yet
+    private final List<String> discarded = new ArrayList<>();
+
+    static class Session {
+        private final String playerName;
+        private final Path playerChr;
+        private final SaveLocation location;
+        private final FileDataMap dataMap;
+        private final HeaderInfo headerInfo;
+        private final ByteBuffer buffer;
+        private final Map<String, PlayerSkill> playerSkills;
+        private final boolean missingSkills;
+        private final long size;
+        private final long lastModified;
+
+        Session(String playerName, Path playerChr, SaveLocation location, FileDataMap dataMap, HeaderInfo headerInfo,
+                ByteBuffer buffer, Map<String, PlayerSkill> playerSkills, boolean missingSkills,
+                long size, long lastModified) {
+            this.playerName = playerName;
+            this.playerChr = playerChr;
+            this.location = location;
+            this.dataMap = dataMap;
+            this.headerInfo = headerInfo;
+            this.buffer = buffer;
+            this.playerSkills = playerSkills;
+            this.missingSkills = missingSkills;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        String getPlayerName() {
+            return playerName;
+        }
+
+        Path getPlayerChr() {
+            return playerChr;
+        }
+
+        SaveLocation getLocation() {
+            return location;
+        }
+
+        FileDataMap getDataMap() {
+            return dataMap;
+        }
+
+        HeaderInfo getHeaderInfo() {
+            return headerInfo;
+        }
+
+        ByteBuffer getBuffer() {
+            return buffer;
+        }
+
+        Map<String, PlayerSkill> getPlayerSkills() {
+            return playerSkills;
+        }
+
+        boolean isMissingSkills() {
+            return missingSkills;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+
+        long estimatedSize() {
+            return (long) buffer.capacity() * PARSED_SIZE_FACTOR;
+        }
+    }
+
+    static BasicFileAttributes attributes(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    synchronized void put(Session session) {
+        if (session == null || session.getPlayerChr() == null || session.getBuffer() == null) {
+            return;
+        }
+        sessions.put(session.getPlayerChr(), session);
+        evict();
+    }
+
+    /**
+     * Add the session only if the character is not cached yet, a session with pending changes is never replaced.
+     *
+     * @return true if the session was added
+     */
+    synchronized boolean offer(Session session) {
+        if (session == null || session.getPlayerChr() == null || session.getBuffer() == null
+                || sessions.containsKey(session.getPlayerChr())) {
+            return false;
+        }
+        sessions.put(session.getPlayerChr(), session);
+        evict();
+        return true;
+    }
+
+    synchronized boolean contains(Path playerChr) {
+        return sessions.containsKey(playerChr);
+    }
+
+    /**
+     * Removes and returns the session of a character, if the file was not modified since it was parsed.
+     */
+    synchronized Session take(Path playerChr) {
+        Session session = sessions.remove(playerChr);
+        if (session == null) {
+            return null;
+        }
+        BasicFileAttributes attr = attributes(playerChr);
+        if (attr == null || attr.size() != session.size || attr.lastModifiedTime().toMillis() != session.lastModified) {
+            logger.log(System.Logger.Level.INFO, "Character ''{0}'' was modified on disk, discarding session", playerChr);
+            discard(session);
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * Drop the session of a character, e.g. after the file was written
+     */
+    public synchronized void invalidate(Path playerChr) {
+        sessions.remove(playerChr);
+    }
+
+    /**
+     * Drop all sessions, pending changes are reported by {@link #takeDiscarded()}
+     */
+    public synchronized void clear() {
+        sessions.values().forEach(this::discard);
+        sessions.clear();
+    }
+
+    /**
+     * @return names of the characters whose pending changes were dropped since the last call
+     */
+    public synchronized List<String> takeDiscarded() {
+        List<String> ret = List.copyOf(discarded);
+        discarded.clear();
+        return ret;
+    }
+
+    private void discard(Session session) {
+        if (session.getDataMap().hasChanges()) {
+            logger.log(System.Logger.Level.WARNING, "Pending changes of ''{0}'' discarded", session.getPlayerChr());
+            discarded.add(session.getPlayerName());
+        }
+    }
+
+    private void evict() {
+        long used = sessions.values().stream().mapToLong(Session::estimatedSize).sum();
+        //sessions with changes count for the budget too, but are only evicted if the others are not enough
+        for (boolean withChanges : new boolean[]{false, true}) {
+            Iterator<Session> it = sessions.values().iterator();
+            while (used > MAX_MEMORY && it.hasNext()) {
+                Session s = it.next();
+                if (s.getDataMap().hasChanges() != withChanges) {
+                    continue;
+                }
+                discard(s);
+                used -= s.estimatedSize();
+                it.remove();
+            }
+        }
+    }
+}
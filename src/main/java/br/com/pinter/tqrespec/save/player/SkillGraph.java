@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.player;
+
+import br.com.pinter.tqdatabase.models.Skill;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Skills of a character resolved from the database once, each mastery linked to the skills the character has in it.
+ * Built from the skills list after load, and discarded whenever the list is prepared again, after a skill or mastery
+ * is reclaimed or removed.
+ */
+final class SkillGraph {
+    /**
+     * @param skill       skill from the database
+     * @param playerSkill skill in the savegame, with level and block offset
+     */
+    record Node(Skill skill, PlayerSkill playerSkill) {
+    }
+
+    private final List<Node> masteries = new ArrayList<>();
+    private final Map<String, List<Node>> skillsByMastery = new HashMap<>();
+
+    /**
+     * @param playerSkills skills found in the savegame
+     * @param resolver     database lookup by record path
+     */
+    SkillGraph(Collection<PlayerSkill> playerSkills, Function<String, Skill> resolver) {
+        for (PlayerSkill sb : playerSkills) {
+            Skill skill = resolver.apply(sb.getSkillName());
+            if (skill == null) {
+                continue;
+            }
+            Node node = new Node(skill, sb);
+            if (skill.isMastery()) {
+                masteries.add(node);
+            } else if (skill.getParentPath() != null) {
+                skillsByMastery.computeIfAbsent(skill.getParentPath(), k -> new ArrayList<>()).add(node);
+            }
+        }
+    }
+
+    List<Node> getMasteries() {
+        return Collections.unmodifiableList(masteries);
+    }
+
+    /**
+     * @param masteryRecordPath record path of the mastery, as in {@link Skill#getRecordPath()}
+     */
+    List<Node> getSkills(String masteryRecordPath) {
+        return Collections.unmodifiableList(skillsByMastery.getOrDefault(masteryRecordPath, List.of()));
+    }
+}
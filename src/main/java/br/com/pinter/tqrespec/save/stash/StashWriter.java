@@ -26,6 +26,8 @@ import br.com.pinter.tqrespec.save.FileWriter;
 import br.com.pinter.tqrespec.util.Constants;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class StashWriter extends FileWriter {
     private static final System.Logger logger = Log.getLogger(StashWriter.class.getName());
@@ -43,10 +45,10 @@ public class StashWriter extends FileWriter {
     public boolean save() {
         try {
             String fName = String.format("%s/winsys.dxb", saveData.getPlayerPath());
-            getSaveData().getDataMap().setString("fName", fName);
-            writeBuffer(saveData.getPlayerPath().toString(), Constants.STASH_FILE);
-            getSaveData().getDataMap().setString("fName", fName.replaceAll("\\.dxb$", ".dxg"));
-            writeBuffer(saveData.getPlayerPath().toString(), Constants.STASH_FILE_BACKUP);
+            Map<String, String> variants = new LinkedHashMap<>();
+            variants.put(Constants.STASH_FILE, fName);
+            variants.put(Constants.STASH_FILE_BACKUP, fName.replaceAll("\\.dxb$", ".dxg"));
+            writeBufferVariants(saveData.getPlayerPath().toString(), "fName", variants);
             return true;
         } catch (IOException e) {
             logger.log(System.Logger.Level.ERROR, Constants.ERROR_MSG_EXCEPTION, e);
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.tqdata;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IntSummaryStatistics;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Filters, sorts and aggregates {@link PlayerCharacter} summaries. Queries are immutable, each filter returns a new
+ * query, so a base query can be shared. Large rosters are evaluated in parallel, results keep the roster order unless
+ * sorted.
+ * <pre>
+ * roster.query().whereInt(PlayerCharacter::getLevel, l -&gt; l &gt; 60).withMasteries(2).list();
+ * roster.query().stats(PlayerCharacter::getPlayTimeInSeconds).getAverage();
+ * </pre>
+ */
+public class CharacterQuery {
+    private static final int PARALLEL_THRESHOLD = 64;
+
+    private final List<PlayerCharacter> characters;
+    private final Predicate<PlayerCharacter> filter;
+    private final Comparator<PlayerCharacter> order;
+
+    private CharacterQuery(List<PlayerCharacter> characters, Predicate<PlayerCharacter> filter,
+                           Comparator<PlayerCharacter> order) {
+        this.characters = characters;
+        this.filter = filter;
+        this.order = order;
+    }
+
+    public static CharacterQuery of(Collection<PlayerCharacter> characters) {
+        return new CharacterQuery(List.copyOf(characters), p -> true, null);
+    }
+
+    public CharacterQuery where(Predicate<PlayerCharacter> predicate) {
+        return new CharacterQuery(characters, filter.and(predicate), order);
+    }
+
+    /**
+     * Filter by an integer stat, e.g. {@code whereInt(PlayerCharacter::getLevel, l -> l > 60)}
+     */
+    public CharacterQuery whereInt(ToIntFunction<PlayerCharacter> stat, IntPredicate predicate) {
+        return where(p -> predicate.test(stat.applyAsInt(p)));
+    }
+
+    /**
+     * Characters with exactly the number of masteries chosen
+     */
+    public CharacterQuery withMasteries(int count) {
+        return where(p -> (p.getMasteries() != null ? p.getMasteries().size() : 0) == count);
+    }
+
+    /**
+     * Characters whose last teleport, in the current difficulty, is in the act
+     */
+    public CharacterQuery withLastTeleportIn(DefaultAct act) {
+        return where(p -> {
+            MapTeleport last = lastTeleport(p);
+            return last != null && last.getAct() == act.getValue();
+        });
+    }
+
+    public CharacterQuery sorted(Comparator<PlayerCharacter> comparator) {
+        return new CharacterQuery(characters, filter, comparator);
+    }
+
+    private static MapTeleport lastTeleport(PlayerCharacter p) {
+        List<MapTeleport> teleports = p.getDefaultMapTeleports().get(p.getDifficulty());
+        return teleports != null && !teleports.isEmpty() ? teleports.get(teleports.size() - 1) : null;
+    }
+
+    private Stream<PlayerCharacter> stream() {
+        Stream<PlayerCharacter> stream = characters.size() >= PARALLEL_THRESHOLD
+                ? characters.parallelStream() : characters.stream();
+        return stream.filter(filter);
+    }
+
+    public List<PlayerCharacter> list() {
+        Stream<PlayerCharacter> stream = stream();
+        if (order != null) {
+            stream = stream.sorted(order);
+        }
+        return stream.collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    public long count() {
+        return stream().count();
+    }
+
+    public Optional<PlayerCharacter> first() {
+        return order != null ? stream().min(order) : stream().findFirst();
+    }
+
+    /**
+     * @return count, sum, min, max and average of the stat over the matching characters
+     */
+    public IntSummaryStatistics stats(ToIntFunction<PlayerCharacter> stat) {
+        return stream().collect(Collectors.summarizingInt(stat));
+    }
+
+    /**
+     * Group the matching characters, keys must not be null
+     */
+    public <K> Map<K, List<PlayerCharacter>> groupBy(Function<PlayerCharacter, K> key) {
+        Stream<PlayerCharacter> stream = stream();
+        if (order != null) {
+            stream = stream.sorted(order);
+        }
+        return stream.collect(Collectors.groupingBy(key, LinkedHashMap::new, Collectors.toList()));
+    }
+
+    public <K> Map<K, Long> countBy(Function<PlayerCharacter, K> key) {
+        return stream().collect(Collectors.groupingBy(key, Collectors.counting()));
+    }
+}
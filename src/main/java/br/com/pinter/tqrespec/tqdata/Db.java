@@ -32,14 +32,18 @@ import com.google.inject.Singleton;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Map;
 
 @Singleton
 public class Db {
     private static final System.Logger logger = Log.getLogger(Db.class.getName());
     private Database database;
+    private RecordIndex recordIndex;
     private Db.Platform platform = Db.Platform.WINDOWS;
     @Inject
     private GameInfo gameInfo;
+    @Inject
+    private PreloadSnapshot preloadSnapshot;
 
     public Db.Platform getPlatform() {
         return platform;
@@ -49,6 +53,8 @@ public class Db {
         try {
             if (database == null) {
                 database = new Database(gameInfo.getDatabasePath());
+                recordIndex = new RecordIndex(database::recordExists);
+                loadRecordIndex(recordIndex);
                 if (gameInfo.getInstallType().equals(InstallType.UNKNOWN)
                         && !Path.of(gameInfo.getGamePath(), "FORCE_WINDOWS.txt").toFile().exists()
                         && (recordExists("Records\\InGameUI\\Player Character\\Mobile\\CharStatsMobile.dbr")
@@ -63,6 +69,22 @@ public class Db {
         }
     }
 
+    /**
+     * Restore the existence checks of the previous run, and save them on exit. tqdatabase doesn't list the records of
+     * each database, so only the checks already answered are kept, not an index of the records.
+     */
+    private void loadRecordIndex(RecordIndex index) {
+        Map<String, Boolean> known = preloadSnapshot.readRecords();
+        if (known != null) {
+            index.putAll(known);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (index.isChanged()) {
+                preloadSnapshot.writeRecords(index.snapshot());
+            }
+        }));
+    }
+
     public Skills skills() {
         initialize();
         return database.skills();
@@ -84,7 +106,7 @@ public class Db {
     }
 
     public boolean recordExists(String recordId) {
-        return database.recordExists(recordId);
+        return recordIndex.exists(recordId);
     }
 
     public enum Platform {
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.tqdata;
+
+import br.com.pinter.tqrespec.core.State;
+import br.com.pinter.tqrespec.gui.ResourceHelper;
+import br.com.pinter.tqrespec.util.Constants;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Localized strings displayed for game tags, already capitalized, cleaned and formatted. The same masteries,
+ * difficulties and teleports are displayed in every row of tables and exports, so each string is resolved once per
+ * locale. Changing {@link State#getLocale()} discards all strings.
+ */
+@Singleton
+public class DisplayStrings {
+    @Inject
+    private Txt txt;
+
+    private volatile Memo memo = new Memo(null);
+
+    private record Memo(Locale locale, Map<String, String> tags, Map<Integer, String> difficulties) {
+        private Memo(Locale locale) {
+            this(locale, new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+    }
+
+    private Memo memo() {
+        Memo m = memo;
+        Locale locale = State.get().getLocale();
+        if (!locale.equals(m.locale())) {
+            m = new Memo(locale);
+            memo = m;
+        }
+        return m;
+    }
+
+    /**
+     * @return same as {@link Txt#getString(String)}
+     */
+    public String text(String tag) {
+        if (tag == null) {
+            return null;
+        }
+        return memo().tags().computeIfAbsent("t:" + tag, k -> txt.getString(tag));
+    }
+
+    /**
+     * @return same as {@link Txt#getCapitalizedString(String)}
+     */
+    public String capitalized(String tag) {
+        if (tag == null) {
+            return null;
+        }
+        return memo().tags().computeIfAbsent("c:" + tag, k -> txt.getCapitalizedString(tag));
+    }
+
+    /**
+     * @return text of the tag without colon, used as a column title
+     */
+    public String label(String tag) {
+        if (tag == null) {
+            return null;
+        }
+        return memo().tags().computeIfAbsent("l:" + tag, k -> {
+            String s = txt.getString(tag);
+            return s != null ? s.replace(":", "") : null;
+        });
+    }
+
+    /**
+     * @return mastery name and level, e.g. "Warfare (32)"
+     */
+    public String mastery(Mastery mastery) {
+        //resolved before, the map can't be updated from inside computeIfAbsent
+        String name = capitalized(mastery.getDisplayName());
+        return memo().tags().computeIfAbsent("m:" + mastery.getDisplayName() + ":" + mastery.getLevel(),
+                k -> String.format(Constants.Msg.CHARACTERS_NAMENUMBER_FORMAT, name, mastery.getLevel()));
+    }
+
+    /**
+     * @param difficulty difficulty as stored in the savegame, starting at zero
+     * @return difficulty name from game text, or the application message if the game has no text for it
+     */
+    public String difficulty(int difficulty) {
+        return memo().difficulties().computeIfAbsent(difficulty, d -> {
+            String difficultyTextValue = String.format("%s%02d", Constants.UI.PREFIXTAG_DIFFICULTYLABEL, d + 1);
+            if (txt.isTagStringValid(difficultyTextValue)) {
+                return ResourceHelper.cleanTagString(txt.getString(difficultyTextValue));
+            }
+            return ResourceHelper.getMessage(String.format("difficulty.%d", d));
+        });
+    }
+}
@@ -22,6 +22,7 @@ package br.com.pinter.tqrespec.tqdata;
 
 import br.com.pinter.tqrespec.Settings;
 import br.com.pinter.tqrespec.core.GameNotFoundException;
+import br.com.pinter.tqrespec.core.WorkerThread;
 import br.com.pinter.tqrespec.gui.ResourceHelper;
 import br.com.pinter.tqrespec.logging.Log;
 import br.com.pinter.tqrespec.save.SaveLocation;
@@ -35,13 +36,19 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.channels.Channels;
-import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -53,13 +60,14 @@ public class GameInfo {
     private static final String TEXT_FILE = "Text_EN.arc";
     private static final String RESOURCES_DIR = "Resources";
     private static final String REG_KEY_VALVE_STEAM = "SOFTWARE\\Valve\\Steam";
+    private static final long DETECTION_PROBE_TIMEOUT_MS = 10000;
     private final System.Logger logger = Log.getLogger(GameInfo.class.getName());
     private final List<Path> resourcesText = new ArrayList<>();
     private final List<Path> databases = new ArrayList<>();
     private String gamePath = null;
     private InstallType installType = InstallType.UNKNOWN;
     private Path tqBasePath = null;
-    private HashMap<String, String> gameOptions;
+    private volatile GameOptions gameOptions;
     private GameVersion installedVersion = GameVersion.UNKNOWN;
     private boolean dlcRagnarok = false;
     private boolean dlcAtlantis = false;
@@ -352,72 +360,113 @@ public class GameInfo {
         return null;
     }
 
+    private interface ProbeResult {
+        /**
+         * @return true if the path found is accepted, after setting version and install type
+         */
+        boolean accept(Path path) throws GameNotFoundException;
+    }
+
+    private record Probe(String name, Supplier<Path> search, ProbeResult result) {
+    }
+
+    private boolean found(GameVersion version, InstallType type) {
+        installedVersion = version;
+        installType = type;
+        return true;
+    }
+
+    /**
+     * @return all known installations, in order of priority
+     */
+    private List<Probe> installationProbes() {
+        return List.of(
+                //search AE in Windows registry
+                new Probe("Installed", () -> getGameInstalledPath(Constants.REGEX_REGISTRY_INSTALL),
+                        p -> found(GameVersion.TQAE, InstallType.WINDOWS)),
+                //search AE in Steam
+                new Probe("SteamLibrary", this::getGameSteamPath,
+                        p -> found(GameVersion.TQAE, InstallType.STEAM)),
+                //search AE in GOG
+                new Probe("Gog", this::getGameGogPath,
+                        p -> found(GameVersion.TQAE, InstallType.GOG)),
+                //try Windows registry with more generic name, and guess the version
+                new Probe("InstalledFallback", () -> getGameInstalledPath(Constants.REGEX_REGISTRY_INSTALL_FALLBACK),
+                        p -> found(getGameVersion(p), InstallType.WINDOWS) && !GameVersion.UNKNOWN.equals(installedVersion)),
+                //search AE in MS Store
+                new Probe("Package", this::getGameMicrosoftStorePath,
+                        p -> found(GameVersion.TQAE, InstallType.MICROSOFT_STORE)),
+                //Anniversary Edition not found, search for TQIT
+                new Probe("Disc", this::getGameDiscTqitPath, p -> {
+                    installedVersion = GameVersion.TQIT;
+                    detectTqBasePath(p);
+                    return true;
+                }),
+                //Search versions that incorrectly uses SteamPath registry
+                new Probe("'Alternative' (modified dll) installation", this::getGameSteamApiBasedPath,
+                        p -> found(getGameVersion(p), InstallType.ALTERNATIVE_STEAM_API))
+        );
+    }
+
+    /**
+     * All probes search the registry and filesystem at the same time, the first valid path in order of priority is
+     * used. A probe still running after {@link #DETECTION_PROBE_TIMEOUT_MS} is skipped.
+     */
     private Path detectInstallation() throws GameNotFoundException {
-        //search AE in Windows registry
-        Path installedPath = getGameInstalledPath(Constants.REGEX_REGISTRY_INSTALL);
-        if (isValidGamePath(installedPath)) {
-            logger.log(System.Logger.Level.DEBUG, "Installed: found");
-            installedVersion = GameVersion.TQAE;
-            installType = InstallType.WINDOWS;
-            return installedPath;
-        }
-
-        //search AE in Steam
-        Path gameSteam = getGameSteamPath();
-        if (isValidGamePath(gameSteam)) {
-            logger.log(System.Logger.Level.DEBUG, "SteamLibrary: found");
-            installedVersion = GameVersion.TQAE;
-            installType = InstallType.STEAM;
-            return gameSteam;
-        }
-
-        //search AE in GOG
-        Path gogPath = getGameGogPath();
-        if (isValidGamePath(gogPath)) {
-            logger.log(System.Logger.Level.DEBUG, "Gog: found");
-            installedVersion = GameVersion.TQAE;
-            installType = InstallType.GOG;
-            return gogPath;
-        }
-
-        //try Windows registry with more generic name, and guess the version
-        Path installedPathFallback = getGameInstalledPath(Constants.REGEX_REGISTRY_INSTALL_FALLBACK);
-        if (isValidGamePath(installedPathFallback)) {
-            logger.log(System.Logger.Level.DEBUG, "Installed: found");
-            installType = InstallType.WINDOWS;
-            installedVersion = getGameVersion(installedPathFallback);
-            if (!GameVersion.UNKNOWN.equals(installedVersion)) {
-                return installedPathFallback;
+        List<Probe> probes = installationProbes();
+        ExecutorService executor = Executors.newFixedThreadPool(probes.size(), r -> {
+            Thread t = new WorkerThread(r);
+            t.setDaemon(true);
+            return t;
+        });
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(DETECTION_PROBE_TIMEOUT_MS);
+        try {
+            List<Future<Path>> futures = new ArrayList<>();
+            for (Probe probe : probes) {
+                futures.add(executor.submit(() -> runProbe(probe)));
             }
-        }
 
-        //search AE in MS Store
-        Path microsoftStorePath = getGameMicrosoftStorePath();
-        if (isValidGamePath(microsoftStorePath)) {
-            logger.log(System.Logger.Level.DEBUG, "Package: found");
-            installedVersion = GameVersion.TQAE;
-            installType = InstallType.MICROSOFT_STORE;
-            return microsoftStorePath;
+            for (int i = 0; i < probes.size(); i++) {
+                Probe probe = probes.get(i);
+                Path path = probeResult(probe, futures.get(i), deadline);
+                if (path != null && probe.result().accept(path)) {
+                    logger.log(System.Logger.Level.INFO, "Installation detected by ''{0}'' in {1}ms: ''{2}''",
+                            probe.name(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), path);
+                    return path;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
         }
 
-        //Anniversary Edition not found, search for TQIT
-        Path discPath = getGameDiscTqitPath();
-        if (isValidGamePath(discPath)) {
-            logger.log(System.Logger.Level.DEBUG, "Disc: found");
-            installedVersion = GameVersion.TQIT;
-            detectTqBasePath(discPath);
-            return discPath;
-        }
+        logger.log(System.Logger.Level.INFO, "Installation not detected, searched in {0}ms",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return null;
+    }
 
-        //Search versions that incorrectly uses SteamPath registry
-        Path alternativeSteamBasedPath = getGameSteamApiBasedPath();
-        if (isValidGamePath(alternativeSteamBasedPath)) {
-            logger.log(System.Logger.Level.DEBUG, "'Alternative' (modified dll) installation: found");
-            installedVersion = getGameVersion(alternativeSteamBasedPath);
-            installType = InstallType.ALTERNATIVE_STEAM_API;
-            return alternativeSteamBasedPath;
+    private Path runProbe(Probe probe) {
+        long start = System.nanoTime();
+        Path path = probe.search().get();
+        if (!isValidGamePath(path)) {
+            path = null;
         }
+        logger.log(System.Logger.Level.DEBUG, "{0}: {1} in {2}ms", probe.name(), path != null ? "found" : "not found",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return path;
+    }
 
+    private Path probeResult(Probe probe, Future<Path> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            logger.log(System.Logger.Level.WARNING, "{0}: timeout after {1}ms", probe.name(), DETECTION_PROBE_TIMEOUT_MS);
+        } catch (ExecutionException e) {
+            logger.log(System.Logger.Level.DEBUG, Constants.ERROR_MSG_EXCEPTION, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         return null;
     }
 
@@ -797,7 +846,7 @@ public class GameInfo {
         return Paths.get(locationPath(saveLocation), "_" + playerName);
     }
 
-    private String locationPath(SaveLocation saveLocation) {
+    public String locationPath(SaveLocation saveLocation) {
         if(saveLocation == null) {
             saveLocation = SaveLocation.MAIN;
         }
@@ -829,35 +878,65 @@ public class GameInfo {
         return Constants.GAMELANGUAGE_LOCALE.get(language);
     }
 
+    /**
+     * @param file     options.txt parsed
+     * @param modified mtime of the file when parsed
+     * @param values   all options found in the file
+     */
+    private record GameOptions(Path file, FileTime modified, Map<String, String> values) {
+    }
+
+    /**
+     * Options are parsed once and kept until options.txt is modified, missing keys don't read the file again.
+     *
+     * @return value of the option, or null if options.txt doesn't have it
+     */
     public String getGameOptionValue(String key) throws IOException {
-        if (gameOptions == null || !gameOptions.containsKey(key)) {
-            readGameOptions();
+        GameOptions options = gameOptions;
+        if (options == null || !options.file().equals(getGameOptionsPath())
+                || !options.modified().equals(Files.getLastModifiedTime(options.file()))) {
+            options = loadGameOptions();
         }
-        return gameOptions.get(key);
+        return options.values().get(key);
     }
 
-    public void readGameOptions() throws IOException {
-        gameOptions = new HashMap<>();
-
+    private Path getGameOptionsPath() throws IOException {
         String saveSetingsPath = getSaveSetingsPath();
         if (StringUtils.isBlank(saveSetingsPath)) {
             throw new IOException("savegame path not found");
         }
+        return Paths.get(saveSetingsPath, "options.txt");
+    }
 
-        Path optionsPath = Paths.get(saveSetingsPath, "options.txt");
+    /**
+     * Read options.txt again, even if not modified
+     */
+    public void readGameOptions() throws IOException {
+        loadGameOptions();
+    }
+
+    private GameOptions loadGameOptions() throws IOException {
+        Path optionsPath = getGameOptionsPath();
         if (!Files.exists(optionsPath)) {
+            gameOptions = null;
             throw new IOException("options.txt not found");
         }
-        FileChannel optionsFile = FileChannel.open(optionsPath);
-        try (BufferedReader reader = new BufferedReader(Channels.newReader(optionsFile, StandardCharsets.UTF_8))) {
+
+        //mtime read before the contents, a change while reading is detected on the next call
+        FileTime modified = Files.getLastModifiedTime(optionsPath);
+        Map<String, String> values = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(optionsPath, StandardCharsets.UTF_8)) {
             String line;
             while ((line = reader.readLine()) != null) {
-                String[] opt = line.split("\\s+=\\s+");
-                if (opt[1] != null) {
-                    gameOptions.put(opt[0].trim(), opt[1].replace("\"", "").trim());
+                int separator = line.indexOf('=');
+                if (separator > 0) {
+                    values.put(line.substring(0, separator).trim(), line.substring(separator + 1).replace("\"", "").trim());
                 }
             }
         }
+        GameOptions options = new GameOptions(optionsPath, modified, Collections.unmodifiableMap(values));
+        gameOptions = options;
+        return options;
     }
 
     private String[] pathsListToArray(List<Path> list) throws FileNotFoundException {
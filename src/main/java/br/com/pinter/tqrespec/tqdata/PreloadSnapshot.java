@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.tqdata;
+
+import br.com.pinter.tqrespec.logging.Log;
+import br.com.pinter.tqrespec.util.Constants;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Snapshots of data preloaded from the game resources, reused on the next start instead of reading the archives
+ * again. Snapshots are keyed by path, size and mtime of every database and text file, and by the text locale; any
+ * change in the game installation discards them.
+ */
+@Singleton
+public class PreloadSnapshot {
+    private static final System.Logger logger = Log.getLogger(PreloadSnapshot.class.getName());
+    private static final int FORMAT_VERSION = 1;
+
+    @Inject
+    private GameInfo gameInfo;
+
+    private Path snapshotFile(String fileName) {
+        return Paths.get(gameInfo.getSavePath(), Constants.CACHE_DIRECTORY, fileName);
+    }
+
+    private static void appendFile(StringBuilder key, Path file) throws IOException {
+        BasicFileAttributes attr = Files.readAttributes(file, BasicFileAttributes.class);
+        key.append(file).append('|').append(attr.size()).append('|').append(attr.lastModifiedTime().toMillis()).append('\n');
+    }
+
+    /**
+     * @return identification of the game files in use, or null if the game files are not available
+     */
+    private byte[] key(String locale) {
+        try {
+            StringBuilder key = new StringBuilder(locale).append('\n');
+            for (String db : gameInfo.getDatabasePath()) {
+                appendFile(key, Paths.get(db));
+            }
+            for (String text : gameInfo.getTextPath()) {
+                try (Stream<Path> files = Files.list(Paths.get(text))) {
+                    for (Path f : files.filter(Files::isRegularFile).sorted().toList()) {
+                        appendFile(key, f);
+                    }
+                }
+            }
+            return key.toString().getBytes(StandardCharsets.UTF_8);
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            logger.log(System.Logger.Level.WARNING, "Unable to read game files attributes", e);
+            return null;
+        }
+    }
+
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * @return contents after the header, or null if the file doesn't exist or was written for other game files
+     */
+    private ByteBuffer read(Path file, byte[] key) {
+        if (key == null || !Files.exists(file)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            //read in one call, the file is replaced on exit, so it's not kept mapped
+            ByteBuffer buf = ByteBuffer.allocate((int) channel.size());
+            while (buf.hasRemaining() && channel.read(buf) > 0) {
+                //read until full
+            }
+            buf.flip();
+
+            if (buf.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            byte[] storedKey = new byte[length(buf)];
+            buf.get(storedKey);
+            if (!Arrays.equals(key, storedKey)) {
+                logger.log(System.Logger.Level.INFO, "Game files changed, snapshot ''{0}'' discarded", file);
+                return null;
+            }
+            return buf;
+        } catch (IOException | RuntimeException e) {
+            logger.log(System.Logger.Level.WARNING, "Invalid snapshot ''{0}''", file);
+            return null;
+        }
+    }
+
+    private void write(Path file, byte[] key, Body body) {
+        if (key == null) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(key.length);
+                out.write(key);
+                body.write(out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.log(System.Logger.Level.WARNING, "Unable to save snapshot ''{0}''", file);
+        }
+    }
+
+    /**
+     * @param locale text locale, as in {@link Constants#LOCALE_TEXT}
+     * @return strings stored by {@link #writeText(String, Map)}, or null if there's no snapshot for the current
+     * game files
+     */
+    public Map<String, String> readText(String locale) {
+        ByteBuffer buf = read(snapshotFile(Constants.PRELOAD_SNAPSHOT_FILE), key(locale));
+        if (buf == null) {
+            return null;
+        }
+        try {
+            int count = length(buf);
+            Map<String, String> strings = new HashMap<>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                strings.put(readString(buf), readString(buf));
+            }
+            logger.log(System.Logger.Level.DEBUG, "Preload snapshot loaded, strings=''{0}''", count);
+            return strings;
+        } catch (RuntimeException e) {
+            logger.log(System.Logger.Level.WARNING, "Invalid preload snapshot");
+            return null;
+        }
+    }
+
+    /**
+     * Replace the text snapshot
+     *
+     * @param locale  text locale, as in {@link Constants#LOCALE_TEXT}
+     * @param strings text tags and the resolved strings
+     */
+    public void writeText(String locale, Map<String, String> strings) {
+        List<Map.Entry<String, String>> entries = new ArrayList<>(strings.entrySet());
+        write(snapshotFile(Constants.PRELOAD_SNAPSHOT_FILE), key(locale), out -> {
+            out.writeInt(entries.size());
+            for (Map.Entry<String, String> e : entries) {
+                writeString(out, e.getKey());
+                writeString(out, e.getValue());
+            }
+        });
+    }
+
+    /**
+     * @return record paths checked in previous runs and the answer of the database, or null if there's no snapshot
+     * for the current game files
+     */
+    public Map<String, Boolean> readRecords() {
+        ByteBuffer buf = read(snapshotFile(Constants.RECORD_INDEX_FILE), key(""));
+        if (buf == null) {
+            return null;
+        }
+        try {
+            int count = length(buf);
+            Map<String, Boolean> records = new HashMap<>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                records.put(readString(buf), buf.get() != 0);
+            }
+            logger.log(System.Logger.Level.DEBUG, "Record existence memo loaded, records=''{0}''", count);
+            return records;
+        } catch (RuntimeException e) {
+            logger.log(System.Logger.Level.WARNING, "Invalid record existence memo");
+            return null;
+        }
+    }
+
+    /**
+     * Replace the saved record existence checks, see {@link RecordIndex}
+     *
+     * @param records normalized record paths checked and whether they exist
+     */
+    public void writeRecords(Map<String, Boolean> records) {
+        List<Map.Entry<String, Boolean>> entries = new ArrayList<>(records.entrySet());
+        write(snapshotFile(Constants.RECORD_INDEX_FILE), key(""), out -> {
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Boolean> e : entries) {
+                writeString(out, e.getKey());
+                out.writeByte(Boolean.TRUE.equals(e.getValue()) ? 1 : 0);
+            }
+        });
+    }
+
+    /**
+     * Read a length or count, checked against the remaining bytes so a corrupt file doesn't allocate huge arrays
+     */
+    private static int length(ByteBuffer buf) {
+        int length = buf.getInt();
+        if (length < 0 || length > buf.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return length;
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] b = new byte[length(buf)];
+        buf.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+}
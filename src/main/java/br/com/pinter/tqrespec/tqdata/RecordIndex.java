@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.tqdata;
+
+import br.com.pinter.tqdatabase.Database;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Memo of record existence checks. Each record is looked up in the database only once, answers are kept by
+ * normalized path, positive and negative, so the same skills found in every character don't reach the database again.
+ * Reads are a single lock-free probe. This is not an index of the records: only paths already checked are known, and
+ * the precedence between the databases of the installation is still resolved by tqdatabase, the memo keeps its final
+ * answer. The answers can be saved and loaded in the next run, see {@link PreloadSnapshot#readRecords()}.
+ */
+final class RecordIndex {
+    private final Map<String, Boolean> records = new ConcurrentHashMap<>();
+    private final Predicate<String> lookup;
+    private volatile boolean changed = false;
+
+    /**
+     * @param lookup exact check in the database
+     */
+    RecordIndex(Predicate<String> lookup) {
+        this.lookup = lookup;
+    }
+
+    boolean exists(String recordId) {
+        String key = recordId != null ? Database.normalizeRecordPath(recordId) : null;
+        if (key == null) {
+            return false;
+        }
+        Boolean exists = records.get(key);
+        if (exists != null) {
+            return exists;
+        }
+        return records.computeIfAbsent(key, k -> {
+            changed = true;
+            return lookup.test(recordId);
+        });
+    }
+
+    /**
+     * @param known answers saved from a previous run, for the same databases
+     */
+    void putAll(Map<String, Boolean> known) {
+        records.putAll(known);
+    }
+
+    boolean isChanged() {
+        return changed;
+    }
+
+    Map<String, Boolean> snapshot() {
+        return Map.copyOf(records);
+    }
+}
@@ -32,42 +32,133 @@ import org.apache.commons.text.WordUtils;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Singleton
 public class Txt {
     private static final System.Logger logger = Log.getLogger(Txt.class.getName());
 
+    private static final int MAX_CACHED_STRINGS = 4096;
+
     @Inject
     private GameInfo gameInfo;
 
-    private Text text;
+    @Inject
+    private PreloadSnapshot preloadSnapshot;
+
+    //one text resource per locale, switching the locale opens a new one and keeps the others
+    private final Map<String, TextResource> resources = new ConcurrentHashMap<>();
+    private boolean lazy = false;
+
+    /**
+     * Text of one locale. The archives are opened on the first lookup and resolved strings are kept in a bounded
+     * LRU; in lazy mode the archives are never preloaded, strings are decoded on demand.
+     */
+    private final class TextResource {
+        private final String locale;
+        private Text text;
+        private final Map<String, String> strings = Collections.synchronizedMap(
+                new LinkedHashMap<>(256, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                        return size() > MAX_CACHED_STRINGS;
+                    }
+                });
+        private volatile boolean changed = false;
+
+        private TextResource(String locale) {
+            this.locale = locale;
+        }
 
-    public void initialize() {
-        try {
-            if (text == null) {
-                text = new Text(gameInfo.getTextPath(), Constants.LOCALE_TEXT.get(State.get().getLocale()));
+        private synchronized Text text() {
+            try {
+                if (text == null) {
+                    text = new Text(gameInfo.getTextPath(), locale);
+                }
+                return text;
+            } catch (FileNotFoundException e) {
+                logger.log(System.Logger.Level.ERROR, Constants.ERROR_MSG_EXCEPTION, e);
+                throw new UnhandledRuntimeException("Error loading text resource.");
+            }
+        }
+
+        private String getString(String str) {
+            String value = str != null ? strings.get(str) : null;
+            if (value != null) {
+                return value;
+            }
+
+            try {
+                value = text().getString(str);
+            } catch (IOException ignore) {
+                return null;
+            }
+            if (str != null && value != null && strings.put(str, value) == null) {
+                changed = true;
+            }
+            return value;
+        }
+
+        private Map<String, String> snapshot() {
+            synchronized (strings) {
+                return new HashMap<>(strings);
             }
-        } catch (FileNotFoundException e) {
-            logger.log(System.Logger.Level.ERROR, Constants.ERROR_MSG_EXCEPTION, e);
-            throw new UnhandledRuntimeException("Error loading text resource.");
         }
     }
 
+    /**
+     * @return text locale in use, as in {@link Constants#LOCALE_TEXT}
+     */
+    public static String locale() {
+        return Constants.LOCALE_TEXT.get(State.get().getLocale());
+    }
+
+    private TextResource current() {
+        String locale = locale();
+        return resources.computeIfAbsent(String.valueOf(locale), k -> new TextResource(locale));
+    }
+
+    /**
+     * @param lazy if true, {@link #preload()} doesn't read the whole text archives
+     */
+    public void setLazy(boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    public void initialize() {
+        current().text();
+    }
+
     public String getString(String str) {
-        initialize();
-        try {
-            return text.getString(str);
-        } catch (IOException ignore) {
-            return null;
-        }
+        return current().getString(str);
     }
 
+    /**
+     * Preload the text resources. If the game files didn't change since the last run, the strings used in the last
+     * run are loaded from the snapshot instead, and any other string is read on demand.
+     */
     public void preload() {
-        initialize();
-        try {
-            text.preload();
-        } catch (IOException e) {
-            throw new UnhandledRuntimeException("Error loading text resource", e);
+        TextResource resource = current();
+        Map<String, String> snapshot = preloadSnapshot.readText(resource.locale);
+        if (snapshot != null) {
+            resource.strings.putAll(snapshot);
+        } else if (!lazy) {
+            try {
+                resource.text().preload();
+            } catch (IOException e) {
+                throw new UnhandledRuntimeException("Error loading text resource", e);
+            }
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> saveSnapshot(resource)));
+    }
+
+    private void saveSnapshot(TextResource resource) {
+        if (resource.changed) {
+            preloadSnapshot.writeText(resource.locale, resource.snapshot());
         }
     }
 
@@ -42,6 +42,11 @@ public class Constants {
     public static final String SETTINGS = "Settings";
     public static final String JAVA_USERDIR = System.getProperty("user.dir");
     public static final String BACKUP_DIRECTORY = Paths.get(SAVEDATA, "TQRespec Backup").toString();
+    public static final String CACHE_DIRECTORY = Paths.get(SAVEDATA, "TQRespec Cache").toString();
+    public static final String CHARACTER_CACHE_FILE = "characters.cache";
+    public static final String ITEM_INDEX_FILE = "items.cache";
+    public static final String PRELOAD_SNAPSHOT_FILE = "preload.cache";
+    public static final String RECORD_INDEX_FILE = "records.cache";
     public static final String VERSION_CHECK_URL = "https://epinter.github.io/version/tqrespec";
     public static final String DEV_GAMEDATA = Paths.get(JAVA_USERDIR, "gamedata").toString();
     public static final String PARENT_GAMEDATA = Paths.get(Paths.get(JAVA_USERDIR).getParent().toString(), "gamedata").toString();
@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.player;
+
+import br.com.pinter.tqdatabase.models.Skill;
+import br.com.pinter.tqrespec.core.GameNotFoundException;
+import br.com.pinter.tqrespec.core.State;
+import br.com.pinter.tqrespec.save.BlockInfo;
+import br.com.pinter.tqrespec.save.SaveLocation;
+import br.com.pinter.tqrespec.save.UID;
+import br.com.pinter.tqrespec.save.VariableInfo;
+import br.com.pinter.tqrespec.tqdata.Db;
+import br.com.pinter.tqrespec.tqdata.DefaultMapTeleport;
+import br.com.pinter.tqrespec.tqdata.GameInfo;
+import br.com.pinter.tqrespec.tqdata.MapTeleport;
+import br.com.pinter.tqrespec.tqdata.Mastery;
+import br.com.pinter.tqrespec.tqdata.PlayerCharacter;
+import br.com.pinter.tqrespec.util.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Answers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class CharacterSummaryCacheTest {
+    @Mock
+    private CurrentPlayerData mockSaveData;
+
+    @InjectMocks
+    private CurrentPlayerData saveData;
+
+    @InjectMocks
+    private PlayerLoader player;
+
+    @Mock
+    private GameInfo gameInfo;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private Db db;
+
+    @InjectMocks
+    private CharacterSummaryCache cache;
+
+    @InjectMocks
+    private CharacterSummaryCache reloaded;
+
+    @TempDir
+    Path tempDir;
+
+    private Path playerChr;
+
+    private PlayerCharacter playerCharacter;
+
+    private BasicFileAttributes attributes;
+
+    @BeforeEach
+    void setUp() throws IOException, GameNotFoundException {
+        playerChr = SaveFixture.copy(tempDir, "_savegame", Constants.PLAYERCHR);
+
+        Mockito.lenient().when(gameInfo.getSavePath()).thenReturn(tempDir.toString());
+        Mockito.lenient().when(gameInfo.getGamePath()).thenReturn("gamedata");
+
+        attributes = PlayerSessionCache.attributes(playerChr);
+        playerCharacter = loadCharacter();
+    }
+
+    /**
+     * Build the summary the same way the characters list does, skill and teleport names that come from the game
+     * database are replaced by the record paths.
+     */
+    private PlayerCharacter loadCharacter() {
+        PlayerCharacter p = new PlayerCharacter();
+        PlayerParser playerParser = new PlayerParser(playerChr.toFile(), "savegame");
+        playerParser.setProjection(Player.CHARACTER_PROJECTION.bind(p));
+        SaveFixture.load(saveData, playerParser);
+
+        Mockito.when(mockSaveData.getDataMap()).thenReturn(saveData.getDataMap());
+        Mockito.when(mockSaveData.getPlatform()).thenReturn(saveData.getPlatform());
+        Mockito.when(mockSaveData.getPlayerCharacterClass()).thenReturn(saveData.getPlayerCharacterClass());
+
+        p.setPath(playerChr.getParent());
+        p.setLocation(SaveLocation.MAIN);
+        p.setGender(player.getGender());
+        p.setCharacterClass(saveData.getHeaderInfo().getPlayerClassTag());
+        p.setDifficulty(player.getDifficulty());
+        p.setStatStr(player.getStr());
+        p.setStatInt(player.getInt());
+        p.setStatDex(player.getDex());
+        p.setStatLife(player.getLife());
+        p.setStatMana(player.getMana());
+        p.setGreatestMonsterKilledName(player.getStatGreatestMonsterKilledName());
+        p.setGreatestMonsterKilledLevel(player.getStatGreatestMonsterKilledLevel());
+        p.setGreatestMonsterKilledLifeAndMana(1234);
+
+        for (TeleportDifficulty t : player.getTeleports()) {
+            List<MapTeleport> teleports = new ArrayList<>();
+            for (VariableInfo v : t.getTeleportList()) {
+                MapTeleport mapTeleport = DefaultMapTeleport.get(new UID((byte[]) v.getValue()));
+                if (mapTeleport != null) {
+                    mapTeleport.setName(mapTeleport.getRecordId());
+                    teleports.add(mapTeleport);
+                }
+            }
+            p.getDefaultMapTeleports().put(t.getDifficulty(), teleports);
+        }
+
+        Map<String, Skill> skills = new HashMap<>();
+        p.setMasteries(new ArrayList<>());
+        for (int offset : saveData.getDataMap().getVariableLocation().get(Constants.Save.SKILL_NAME)) {
+            BlockInfo block = saveData.getDataMap().getBlockInfo().get(offset);
+            String recordPath = (String) block.getVariables().get(Constants.Save.SKILL_NAME).get(0).getValue();
+            if (recordPath == null || !recordPath.toLowerCase().contains("mastery.dbr")) {
+                continue;
+            }
+            Skill skill = Mockito.mock(Skill.class);
+            Mockito.lenient().when(skill.getRecordPath()).thenReturn(recordPath);
+            skills.put(recordPath, skill);
+
+            Mastery mastery = new Mastery();
+            mastery.setSkill(skill);
+            mastery.setDisplayName(recordPath);
+            mastery.setLevel((Integer) block.getVariables().get(Constants.Save.SKILL_LEVEL).get(0).getValue());
+            p.getMasteries().add(mastery);
+        }
+        Mockito.lenient().when(db.skills().getSkill(anyString(), eq(false))).thenAnswer(i -> skills.get(i.<String>getArgument(0)));
+        return p;
+    }
+
+    private void assertCharacterEquals(PlayerCharacter expected, PlayerCharacter actual) {
+        assertNotNull(actual);
+        Map<String, Function<PlayerCharacter, Object>> fields = new LinkedHashMap<>();
+        fields.put("name", PlayerCharacter::getName);
+        fields.put("path", PlayerCharacter::getPath);
+        fields.put("location", PlayerCharacter::getLocation);
+        fields.put("level", PlayerCharacter::getLevel);
+        fields.put("gender", PlayerCharacter::getGender);
+        fields.put("characterClass", PlayerCharacter::getCharacterClass);
+        fields.put("difficulty", PlayerCharacter::getDifficulty);
+        fields.put("experience", PlayerCharacter::getExperience);
+        fields.put("gold", PlayerCharacter::getGold);
+        fields.put("statLife", PlayerCharacter::getStatLife);
+        fields.put("statMana", PlayerCharacter::getStatMana);
+        fields.put("statStr", PlayerCharacter::getStatStr);
+        fields.put("statInt", PlayerCharacter::getStatInt);
+        fields.put("statDex", PlayerCharacter::getStatDex);
+        fields.put("statAvailableAttrPoints", PlayerCharacter::getStatAvailableAttrPoints);
+        fields.put("statAvailableSkillPoints", PlayerCharacter::getStatAvailableSkillPoints);
+        fields.put("playTimeInSeconds", PlayerCharacter::getPlayTimeInSeconds);
+        fields.put("greatestMonsterKilledName", PlayerCharacter::getGreatestMonsterKilledName);
+        fields.put("numberOfDeaths", PlayerCharacter::getNumberOfDeaths);
+        fields.put("numberOfKills", PlayerCharacter::getNumberOfKills);
+        fields.put("experienceFromKills", PlayerCharacter::getExperienceFromKills);
+        fields.put("healthPotionsUsed", PlayerCharacter::getHealthPotionsUsed);
+        fields.put("manaPotionsUsed", PlayerCharacter::getManaPotionsUsed);
+        fields.put("numHitsReceived", PlayerCharacter::getNumHitsReceived);
+        fields.put("numHitsInflicted", PlayerCharacter::getNumHitsInflicted);
+        fields.put("greatestDamageInflicted", PlayerCharacter::getGreatestDamageInflicted);
+        fields.put("greatestMonsterKilledLevel", PlayerCharacter::getGreatestMonsterKilledLevel);
+        fields.put("greatestMonsterKilledLifeAndMana", PlayerCharacter::getGreatestMonsterKilledLifeAndMana);
+        fields.put("criticalHitsInflicted", PlayerCharacter::getCriticalHitsInflicted);
+        for (Map.Entry<String, Function<PlayerCharacter, Object>> f : fields.entrySet()) {
+            assertEquals(f.getValue().apply(expected), f.getValue().apply(actual), f.getKey());
+        }
+
+        assertFalse(expected.getMasteries().isEmpty());
+        assertEquals(expected.getMasteries().size(), actual.getMasteries().size());
+        for (int i = 0; i < expected.getMasteries().size(); i++) {
+            Mastery e = expected.getMasteries().get(i);
+            Mastery a = actual.getMasteries().get(i);
+            assertEquals(e.getDisplayName(), a.getDisplayName());
+            assertEquals(e.getLevel(), a.getLevel());
+            assertNotNull(a.getSkill());
+            assertEquals(e.getSkill().getRecordPath(), a.getSkill().getRecordPath());
+        }
+
+        assertEquals(3, expected.getDefaultMapTeleports().size());
+        assertEquals(expected.getDefaultMapTeleports().keySet(), actual.getDefaultMapTeleports().keySet());
+        for (Map.Entry<Integer, List<MapTeleport>> e : expected.getDefaultMapTeleports().entrySet()) {
+            List<MapTeleport> actualTeleports = actual.getDefaultMapTeleports().get(e.getKey());
+            assertFalse(e.getValue().isEmpty());
+            assertEquals(e.getValue().size(), actualTeleports.size(), "difficulty " + e.getKey());
+            for (int i = 0; i < e.getValue().size(); i++) {
+                assertEquals(e.getValue().get(i).getOrder(), actualTeleports.get(i).getOrder());
+                assertEquals(e.getValue().get(i).getUid(), actualTeleports.get(i).getUid());
+                assertEquals(e.getValue().get(i).getName(), actualTeleports.get(i).getName());
+            }
+        }
+    }
+
+    @Test
+    void get_Should_returnCharacterPut() {
+        cache.put(playerChr, attributes, playerCharacter);
+
+        assertCharacterEquals(playerCharacter, cache.get(playerChr));
+    }
+
+    @Test
+    void save_Should_writeCharactersReadInNextRun() {
+        cache.put(playerChr, attributes, playerCharacter);
+        cache.save();
+        assertTrue(Files.exists(tempDir.resolve(Constants.CACHE_DIRECTORY).resolve(Constants.CHARACTER_CACHE_FILE)));
+
+        assertCharacterEquals(playerCharacter, reloaded.get(playerChr));
+    }
+
+    @Test
+    void get_Should_discardEntryWhenMtimeChanges() throws IOException {
+        cache.put(playerChr, attributes, playerCharacter);
+        assertNotNull(cache.get(playerChr));
+        FileTime mtime = Files.getLastModifiedTime(playerChr);
+
+        Files.setLastModifiedTime(playerChr, FileTime.fromMillis(mtime.toMillis() + 2000));
+        assertNull(cache.get(playerChr));
+    }
+
+    @Test
+    void get_Should_discardEntryWhenSizeChanges() throws IOException {
+        cache.put(playerChr, attributes, playerCharacter);
+        assertNotNull(cache.get(playerChr));
+        FileTime mtime = Files.getLastModifiedTime(playerChr);
+
+        Files.write(playerChr, new byte[1], StandardOpenOption.APPEND);
+        Files.setLastModifiedTime(playerChr, mtime);
+        assertNull(cache.get(playerChr));
+    }
+
+    @Test
+    void get_Should_discardEntryWhenLocaleChanges() {
+        cache.put(playerChr, attributes, playerCharacter);
+        cache.save();
+        try {
+            State.get().setLocale(new Locale("fr"));
+            assertNull(cache.get(playerChr));
+            assertNull(reloaded.get(playerChr));
+        } finally {
+            State.get().setLocale(Locale.ENGLISH);
+        }
+        assertNotNull(cache.get(playerChr));
+    }
+
+    @Test
+    void put_Should_notMatchFileSavedDuringParse() throws IOException {
+        //attributes were read before the parse, the file is saved again before the entry is stored
+        FileTime mtime = Files.getLastModifiedTime(playerChr);
+        Files.setLastModifiedTime(playerChr, FileTime.fromMillis(mtime.toMillis() + 2000));
+
+        cache.put(playerChr, attributes, playerCharacter);
+        assertNull(cache.get(playerChr));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.player;
+
+import br.com.pinter.tqrespec.save.BlockInfo;
+import br.com.pinter.tqrespec.save.exporter.Exporter;
+import br.com.pinter.tqrespec.save.exporter.Importer;
+import br.com.pinter.tqrespec.save.exporter.SaveDiff;
+import br.com.pinter.tqrespec.tqdata.GameInfo;
+import br.com.pinter.tqrespec.util.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImporterTest {
+    @Mock
+    private CurrentPlayerData mockSaveData;
+
+    @InjectMocks
+    private CurrentPlayerData saveData;
+
+    @Mock
+    private GameInfo gameInfo;
+
+    @InjectMocks
+    private PlayerWriter playerWriter;
+
+    @TempDir
+    Path tempDir;
+
+    private Path playerChr;
+
+    private Map<Integer, BlockInfo> originalBlocks;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        playerChr = SaveFixture.copy(tempDir, "_savegame", Constants.PLAYERCHR);
+
+        //the data map clears the parsed blocks on reset
+        originalBlocks = Map.copyOf(load(playerChr));
+        SaveFixture.stubWriter(mockSaveData, saveData, playerChr);
+    }
+
+    private Map<Integer, BlockInfo> load(Path file) {
+        return SaveFixture.load(saveData, new PlayerParser(file.toFile(), "savegame"));
+    }
+
+    /**
+     * Replace the value of the first occurrence of the variable in the exported json
+     */
+    private static String edit(String json, String variable, String newValue) {
+        Matcher m = Pattern.compile("\"" + variable + "\" : (\"[^\"]*\"|-?\\d+)").matcher(json);
+        assertTrue(m.find(), variable);
+        return json.substring(0, m.start(1)) + newValue + json.substring(m.end(1));
+    }
+
+    @Test
+    void readChanges_Should_returnEmpty_When_jsonNotEdited() throws IOException {
+        File json = tempDir.resolve("export.json").toFile();
+        new Exporter(json, saveData.getDataMap()).writeJson();
+
+        //floats, empty uids (exported as null) and streams must compare equal to the parsed values
+        assertEquals(List.of(), new Importer(json, saveData.getDataMap()).readChanges());
+    }
+
+    @Test
+    void importJson_Should_writeOnlyEditedValues() throws IOException {
+        int isInMainQuest = saveData.getDataMap().getInt("isInMainQuest");
+        String playerName = saveData.getDataMap().getString("myPlayerName");
+        String newPlayerName = playerName + "Imported";
+
+        File json = tempDir.resolve("export.json").toFile();
+        new Exporter(json, saveData.getDataMap()).writeJson();
+        String edited = Files.readString(json.toPath(), StandardCharsets.UTF_8);
+        edited = edit(edited, "isInMainQuest", String.valueOf(1 - isInMainQuest));
+        edited = edit(edited, "myPlayerName", "\"" + newPlayerName + "\"");
+        Files.writeString(json.toPath(), edited, StandardCharsets.UTF_8);
+
+        assertEquals(2, new Importer(json, saveData.getDataMap()).importJson());
+        assertTrue(playerWriter.save());
+
+        Map<Integer, BlockInfo> savedBlocks = load(playerChr);
+        assertEquals(1 - isInMainQuest, saveData.getDataMap().getInt("isInMainQuest"));
+        assertEquals(newPlayerName, saveData.getDataMap().getString("myPlayerName"));
+
+        Map<String, SaveDiff.VariableChange> changes = new SaveDiff(originalBlocks, savedBlocks).getVariableChanges()
+                .stream().collect(Collectors.toMap(SaveDiff.VariableChange::name, c -> c));
+        assertEquals(Set.of("isInMainQuest", "myPlayerName"), changes.keySet());
+        assertTrue(changes.values().stream().allMatch(c -> c.type() == SaveDiff.ChangeType.CHANGED));
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.player;
+
+import br.com.pinter.tqrespec.core.GameNotFoundException;
+import br.com.pinter.tqrespec.save.BufferPool;
+import br.com.pinter.tqrespec.save.SaveLocation;
+import br.com.pinter.tqrespec.tqdata.GameInfo;
+import br.com.pinter.tqrespec.tqdata.PlayerCharacterFile;
+import br.com.pinter.tqrespec.util.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@ExtendWith(MockitoExtension.class)
+class ItemIndexTest {
+    private static final String STASH_BOW = "records\\item\\equipmentweapon\\bow\\c15_bow02.dbr";
+    private static final String STASH_BOW_CHANGED = "records\\item\\equipmentweapon\\bow\\c15_bow03.dbr";
+
+    @Mock
+    private GameInfo gameInfo;
+
+    @Spy
+    private BufferPool bufferPool = new BufferPool();
+
+    @InjectMocks
+    private ItemIndex itemIndex;
+
+    @InjectMocks
+    private ItemIndex reloaded;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException, GameNotFoundException {
+        //the _savegame character has no items, only the stash; the _mobile character has inventory and equipment
+        SaveFixture.copy(tempDir, "_savegame", Constants.PLAYERCHR);
+        SaveFixture.copy(tempDir, "_savegame", Constants.STASH_FILE);
+        SaveFixture.copy(tempDir, "_mobile", Constants.PLAYERCHR);
+
+        Mockito.lenient().when(gameInfo.getSavePath()).thenReturn(tempDir.toString());
+        Mockito.lenient().when(gameInfo.getGamePath()).thenReturn("gamedata");
+        Mockito.lenient().when(gameInfo.getPlayerCharacterList()).thenReturn(List.of(
+                new PlayerCharacterFile("savegame", SaveLocation.MAIN),
+                new PlayerCharacterFile("mobile", SaveLocation.MAIN)));
+        Mockito.lenient().when(gameInfo.playerChr(anyString(), any())).thenAnswer(i ->
+                tempDir.resolve("_" + i.getArgument(0)).resolve(Constants.PLAYERCHR));
+    }
+
+    private void assertLocation(ItemIndex index, String recordPath, String playerName, ItemIndex.Container container,
+                                int containerIndex, int x, int y) {
+        List<ItemIndex.ItemLocation> found = index.find(recordPath);
+        assertEquals(1, found.size(), recordPath);
+        assertEquals(new ItemIndex.ItemLocation(playerName, SaveLocation.MAIN, container, containerIndex, x, y),
+                found.get(0), recordPath);
+    }
+
+    private void assertStash(ItemIndex index) {
+        ItemIndex.Container stash = ItemIndex.Container.STASH;
+        assertLocation(index, STASH_BOW, "savegame", stash, 0, 0, 0);
+        assertLocation(index, "records\\item\\lootmagicalaffixes\\suffix\\default\\offensive_+%fire_03.dbr",
+                "savegame", stash, 0, 0, 0);
+        assertLocation(index, "records\\item\\animalrelics\\02_multacts_rigidcarapace.dbr", "savegame", stash, 0, 12, 13);
+        assertLocation(index, "records\\item\\relics\\02_act1_prometheusflame.dbr", "savegame", stash, 0, 3, 12);
+        assertLocation(index, "records\\item\\relics\\02_act3_yenlowangsbloodletting.dbr", "savegame", stash, 0, 15, 1);
+        assertLocation(index, "records\\xpack\\item\\relics\\02_act4_ironwillofajax.dbr", "savegame", stash, 0, 5, 1);
+        assertLocation(index, "records\\xpack\\item\\charms\\01_act4_frozenchitin.dbr", "savegame", stash, 0, 9, 10);
+        //record paths are case insensitive
+        assertLocation(index, "Records\\XPack\\Item\\EquipmentWeapons\\Staff\\C06_Lightning02.dbr",
+                "savegame", stash, 0, 4, 5);
+        assertLocation(index, "records/item/lootmagicalaffixes/prefix/default/offensive_damagelightning_05.dbr",
+                "savegame", stash, 0, 4, 5);
+    }
+
+    private void assertInventory(ItemIndex index) {
+        ItemIndex.Container inventory = ItemIndex.Container.INVENTORY;
+        assertLocation(index, "Records\\Item\\EquipmentWeapon\\Sword\\C01_Sword01.dbr", "mobile", inventory, 0, 7, 0);
+        assertLocation(index, "Records\\Item\\EquipmentWeapon\\Bow\\C01_Bow02.dbr", "mobile", inventory, 0, 3, 0);
+        assertLocation(index, "Records\\Item\\EquipmentArmband\\C01_Bracelet01.dbr", "mobile", inventory, 0, 8, 2);
+        assertLocation(index, "records\\xpack2\\item\\equipmentweapons\\1hranged\\01a_roh03.dbr",
+                "mobile", inventory, 0, 10, 0);
+    }
+
+    private void assertEquipment(ItemIndex index) {
+        ItemIndex.Container equipment = ItemIndex.Container.EQUIPMENT;
+        assertLocation(index, "Records\\Item\\EquipmentArmor\\C01_Torso01.dbr", "mobile", equipment, 0, 2, -1);
+        assertLocation(index, "Records\\Item\\EquipmentGreaves\\C01_GreavesMage01.dbr", "mobile", equipment, 0, 3, -1);
+        assertLocation(index, "Records\\Item\\EquipmentWeapon\\Staff\\C01_Fire01.dbr", "mobile", equipment, 0, 8, -1);
+    }
+
+    @Test
+    void update_Should_indexItemsOfStashInventoryAndEquipment() {
+        itemIndex.update();
+
+        assertStash(itemIndex);
+        assertInventory(itemIndex);
+        assertEquipment(itemIndex);
+        assertTrue(itemIndex.find("records\\item\\missing.dbr").isEmpty());
+    }
+
+    @Test
+    void update_Should_loadPersistedIndexWithoutParsing() {
+        itemIndex.update();
+        assertTrue(Files.exists(Paths.get(tempDir.toString(), Constants.CACHE_DIRECTORY, Constants.ITEM_INDEX_FILE)));
+
+        Mockito.clearInvocations(bufferPool);
+        reloaded.update();
+        Mockito.verifyNoInteractions(bufferPool);
+
+        assertStash(reloaded);
+        assertInventory(reloaded);
+        assertEquipment(reloaded);
+    }
+
+    @Test
+    void update_Should_reindexModifiedFile() throws IOException {
+        itemIndex.update();
+
+        //same length record path, the stash structure is not changed
+        Path stash = tempDir.resolve("_savegame").resolve(Constants.STASH_FILE);
+        byte[] data = Files.readAllBytes(stash);
+        byte[] search = "c15_bow02".getBytes(StandardCharsets.US_ASCII);
+        int pos = indexOf(data, search);
+        assertTrue(pos > 0);
+        data[pos + search.length - 1] = '3';
+        FileTime lastModified = Files.getLastModifiedTime(stash);
+        Files.write(stash, data);
+        Files.setLastModifiedTime(stash, FileTime.fromMillis(lastModified.toMillis() + 10000));
+
+        Mockito.clearInvocations(bufferPool);
+        reloaded.update();
+        //only the modified file is read again
+        Mockito.verify(bufferPool, Mockito.times(1)).lease(Mockito.anyInt());
+
+        assertTrue(reloaded.find(STASH_BOW).isEmpty());
+        assertLocation(reloaded, STASH_BOW_CHANGED, "savegame", ItemIndex.Container.STASH, 0, 0, 0);
+        assertLocation(reloaded, "records\\item\\animalrelics\\02_multacts_rigidcarapace.dbr", "savegame",
+                ItemIndex.Container.STASH, 0, 12, 13);
+        assertInventory(reloaded);
+        assertEquipment(reloaded);
+    }
+
+    private static int indexOf(byte[] data, byte[] search) {
+        for (int i = 0; i <= data.length - search.length; i++) {
+            int j = 0;
+            while (j < search.length && Character.toLowerCase(data[i + j]) == search[j]) {
+                j++;
+            }
+            if (j == search.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
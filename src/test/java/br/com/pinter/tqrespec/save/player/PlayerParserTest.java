@@ -23,6 +23,7 @@ package br.com.pinter.tqrespec.save.player;
 import br.com.pinter.tqrespec.save.Platform;
 import br.com.pinter.tqrespec.save.UID;
 import br.com.pinter.tqrespec.save.VariableInfo;
+import br.com.pinter.tqrespec.save.VariableProjection;
 import br.com.pinter.tqrespec.tqdata.GameVersion;
 import br.com.pinter.tqrespec.util.Constants;
 import org.junit.jupiter.api.BeforeEach;
@@ -299,6 +300,23 @@ class PlayerParserTest {
         assertEquals("{^r}Hades ~ God of the Dead", readStringVar(PlayerFileVariable.valueOf(Platform.WINDOWS, "greatestMonsterKilledName").var()));
     }
 
+    @Test
+    void setProjection_Should_fillTargetDuringParse() {
+        Map<String, Integer> projected = new HashMap<>();
+        VariableProjection<Map<String, Integer>> projection = VariableProjection.<Map<String, Integer>>builder()
+                .intVar("money", (m, v) -> m.put("money", v))
+                .intVar("currentStats.charLevel", (m, v) -> m.put("currentStats.charLevel", v))
+                .intVar(Constants.Save.SKILL_POINTS, (m, v) -> m.put(Constants.Save.SKILL_POINTS, v))
+                .build();
+        playerParser.setProjection(projection.bind(projected));
+        parse();
+
+        assertEquals(3, projected.size());
+        for (Map.Entry<String, Integer> e : projected.entrySet()) {
+            assertEquals(saveData.getDataMap().getInt(e.getKey()), e.getValue());
+        }
+    }
+
     private int readTempVar(String alias) {
         parse();
 
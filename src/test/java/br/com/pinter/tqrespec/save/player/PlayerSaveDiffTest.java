@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.player;
+
+import br.com.pinter.tqrespec.save.BlockInfo;
+import br.com.pinter.tqrespec.save.exporter.SaveDiff;
+import br.com.pinter.tqrespec.tqdata.GameInfo;
+import br.com.pinter.tqrespec.util.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class PlayerSaveDiffTest {
+    @Mock
+    private CurrentPlayerData mockSaveData;
+
+    @InjectMocks
+    private CurrentPlayerData saveData;
+
+    @Mock
+    private GameInfo gameInfo;
+
+    @InjectMocks
+    private PlayerWriter playerWriter;
+
+    @TempDir
+    Path tempDir;
+
+    private Path fixture;
+
+    private Path playerChr;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fixture = SaveFixture.fixture("_savegame", Constants.PLAYERCHR);
+        playerChr = tempDir.resolve("_savegame").resolve(Constants.PLAYERCHR);
+        Files.createDirectories(playerChr.getParent());
+
+        SaveFixture.load(saveData, new PlayerParser(fixture.toFile(), "savegame"));
+        SaveFixture.stubWriter(mockSaveData, saveData, playerChr);
+    }
+
+    /**
+     * First skill that is not a mastery and is followed by other skills, so the siblings after it are shifted
+     */
+    private BlockInfo skillToReclaim() {
+        BlockInfo skill = null;
+        for (int offset : saveData.getDataMap().getVariableLocation().get(Constants.Save.SKILL_NAME)) {
+            BlockInfo block = saveData.getDataMap().getBlockInfo().get(offset);
+            String name = block.getVariables().get(Constants.Save.SKILL_NAME).get(0).getValueString();
+            int level = (Integer) block.getVariables().get(Constants.Save.SKILL_LEVEL).get(0).getValue();
+            if (skill != null && block.getParentOffset() == skill.getParentOffset() && block.getStart() > skill.getStart()) {
+                return skill;
+            }
+            if (skill == null && !name.toLowerCase().contains("mastery.dbr") && level > 0) {
+                skill = block;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    void compare_Should_reportOnlyReclaimedSkill() throws IOException {
+        BlockInfo skill = skillToReclaim();
+        assertNotNull(skill);
+        int skillLevel = (Integer) skill.getVariables().get(Constants.Save.SKILL_LEVEL).get(0).getValue();
+        int skillPoints = saveData.getDataMap().getInt(Constants.Save.SKILL_POINTS);
+        int max = saveData.getDataMap().getInt("max");
+
+        //same changes of Player.reclaimSkillPoints()
+        saveData.getDataMap().setInt(Constants.Save.SKILL_POINTS, skillPoints + skillLevel);
+        saveData.getDataMap().removeBlock(skill.getStart());
+        saveData.getDataMap().setInt("max", max - 1);
+        assertTrue(playerWriter.save());
+
+        SaveDiff diff = PlayerSaveDiff.compare(fixture, playerChr);
+
+        List<SaveDiff.BlockChange> removedBlocks = diff.getBlockChanges().stream()
+                .filter(c -> c.type() == SaveDiff.ChangeType.REMOVED).toList();
+        assertEquals(1, removedBlocks.size());
+        SaveDiff.BlockChange removed = removedBlocks.get(0);
+        assertEquals(skill.getStart(), removed.left().getStart());
+        assertTrue(removed.path().contains(skill.getVariables().get(Constants.Save.SKILL_NAME).get(0).getValueString()));
+
+        //variables of the removed block are removed, the only other changes are the counters
+        Map<String, SaveDiff.VariableChange> others = diff.getVariableChanges().stream()
+                .filter(c -> {
+                    if (c.path().equals(removed.path())) {
+                        assertEquals(SaveDiff.ChangeType.REMOVED, c.type());
+                        return false;
+                    }
+                    return true;
+                })
+                .collect(Collectors.toMap(SaveDiff.VariableChange::name, c -> c));
+        assertEquals(skill.getVariables().size(), diff.getVariableChanges().size() - others.size());
+        assertEquals(2, others.size(), others.keySet().toString());
+
+        SaveDiff.VariableChange points = others.get(Constants.Save.SKILL_POINTS);
+        assertEquals(SaveDiff.ChangeType.CHANGED, points.type());
+        assertEquals(skillPoints, points.left().getValue());
+        assertEquals(skillPoints + skillLevel, points.right().getValue());
+
+        SaveDiff.VariableChange maxChange = others.get("max");
+        assertEquals(SaveDiff.ChangeType.CHANGED, maxChange.type());
+        assertEquals(max, maxChange.left().getValue());
+        assertEquals(max - 1, maxChange.right().getValue());
+
+        //the skills after the removed one are not shifted, only the blocks of the counters are changed
+        Set<String> changedBlocks = diff.getBlockChanges().stream()
+                .filter(c -> c.type() != SaveDiff.ChangeType.REMOVED)
+                .peek(c -> assertEquals(SaveDiff.ChangeType.CHANGED, c.type()))
+                .map(SaveDiff.BlockChange::path).collect(Collectors.toSet());
+        assertEquals(Set.of(points.path(), maxChange.path()), changedBlocks);
+    }
+}
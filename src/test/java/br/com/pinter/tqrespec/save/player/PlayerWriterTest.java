@@ -30,6 +30,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -38,9 +39,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -64,6 +69,9 @@ class PlayerWriterTest {
     @InjectMocks
     private PlayerWriter playerWriter;
 
+    @TempDir
+    Path tempDir;
+
     @BeforeEach
     void setUp() throws IOException {
         File playerChr = new File("src/test/resources/_savegame/Player.chr");
@@ -226,6 +234,88 @@ class PlayerWriterTest {
                 || "src\\test\\resources\\_testcopy/winsys.dxb".equals(stashData.getDataMap().getString("fName")));
     }
 
+    /**
+     * Writes the stash the way it was written before the backup copy was patched in place, each file spliced from
+     * the parsed buffer with its own crc.
+     */
+    private static class StashTestWriter extends StashWriter {
+        private final StashData stashData;
+
+        StashTestWriter(StashData stashData) {
+            super(stashData);
+            this.stashData = stashData;
+        }
+
+        byte[] writeFull(Path dir, String fName) throws IOException {
+            stashData.getDataMap().setString("fName", fName);
+            writeBuffer(dir.toString(), Constants.STASH_FILE_BACKUP);
+            return Files.readAllBytes(dir.resolve(Constants.STASH_FILE_BACKUP));
+        }
+
+        void writeVariants(Map<String, String> variants) throws IOException {
+            writeBufferVariants(stashData.getPlayerPath().toString(), "fName", variants);
+        }
+    }
+
+    /**
+     * Copy the stash of the test savegame to a temporary player directory
+     */
+    private Path copyStash() throws IOException {
+        Path stashDir = tempDir.resolve("_testcopy");
+        Files.createDirectories(stashDir);
+        for (String fileName : new String[]{Constants.STASH_FILE, Constants.STASH_FILE_BACKUP}) {
+            Files.copy(Paths.get("src/test/resources/_savegame", fileName), stashDir.resolve(fileName));
+        }
+        return stashDir;
+    }
+
+    private StashData loadStash(Path stashDir) {
+        StashLoader stashLoader = new StashLoader();
+        assertTrue(stashLoader.loadStash(stashDir, "testcopy"));
+        return stashLoader.getSaveData();
+    }
+
+    private void assertStashCrc(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data.clone()).order(ByteOrder.LITTLE_ENDIAN);
+        int stored = buffer.getInt(0);
+        buffer.putInt(0, 0);
+        buffer.rewind();
+        assertEquals(stored, new StashWriter(null).calculateCRC32(buffer));
+    }
+
+    @Test
+    void saveStash_Should_writeBackupWithValidCrc() throws IOException {
+        Path stashDir = copyStash();
+        assertTrue(new StashWriter(loadStash(stashDir)).save());
+
+        byte[] backup = Files.readAllBytes(stashDir.resolve(Constants.STASH_FILE_BACKUP));
+        assertStashCrc(backup);
+        assertStashCrc(Files.readAllBytes(stashDir.resolve(Constants.STASH_FILE)));
+
+        //same bytes as a full rebuild of the backup
+        Path expectedDir = Files.createDirectories(tempDir.resolve("expected"));
+        String fName = String.format("%s/winsys.dxg", stashDir);
+        byte[] expected = new StashTestWriter(loadStash(stashDir)).writeFull(expectedDir, fName);
+        assertArrayEquals(expected, backup);
+    }
+
+    @Test
+    void saveStashVariants_Should_rebuildWhenValueLengthChanges() throws IOException {
+        Path stashDir = copyStash();
+        Map<String, String> variants = new LinkedHashMap<>();
+        variants.put(Constants.STASH_FILE, "short/winsys.dxb");
+        variants.put(Constants.STASH_FILE_BACKUP, "a/much/longer/path/winsys.dxg");
+        new StashTestWriter(loadStash(stashDir)).writeVariants(variants);
+
+        Path expectedDir = Files.createDirectories(tempDir.resolve("expected"));
+        for (Map.Entry<String, String> v : variants.entrySet()) {
+            byte[] written = Files.readAllBytes(stashDir.resolve(v.getKey()));
+            assertStashCrc(written);
+            byte[] expected = new StashTestWriter(loadStash(stashDir)).writeFull(expectedDir, v.getValue());
+            assertArrayEquals(expected, written);
+        }
+    }
+
     @Test
     void writeGender_Should_writeAndReadGenderFromSaveGame() {
         prepareCopySavegame();
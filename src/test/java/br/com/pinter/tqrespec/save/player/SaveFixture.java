@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.save.player;
+
+import br.com.pinter.tqrespec.save.BlockInfo;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Savegame fixtures of src/test/resources shared by the player tests.
+ */
+final class SaveFixture {
+    private SaveFixture() {
+    }
+
+    /**
+     * @param dir      directory of the fixture, as in "_savegame"
+     * @param fileName file inside the directory
+     * @return path of the fixture
+     * @throws IOException if the fixture is missing
+     */
+    static Path fixture(String dir, String fileName) throws IOException {
+        Path fixture = Paths.get("src/test/resources", dir, fileName);
+        if (!Files.exists(fixture)) {
+            throw new IOException(String.format("File %s is missing," +
+                    " copy the savegame to execute the tests", fixture));
+        }
+        return fixture;
+    }
+
+    /**
+     * Copy the fixture to the same relative location inside the directory
+     *
+     * @return path of the copy
+     */
+    static Path copy(Path tempDir, String dir, String fileName) throws IOException {
+        Path fixture = fixture(dir, fileName);
+        Path target = tempDir.resolve(dir).resolve(fileName);
+        Files.createDirectories(target.getParent());
+        Files.copy(fixture, target);
+        return target;
+    }
+
+    /**
+     * Reset the save data and fill it with the file parsed
+     *
+     * @return blocks parsed, the data map clears them on reset
+     */
+    static Map<Integer, BlockInfo> load(CurrentPlayerData saveData, PlayerParser playerParser) {
+        saveData.reset();
+        saveData.setBuffer(playerParser.load());
+        saveData.setPlatform(playerParser.getDetectedPlatform());
+        saveData.getDataMap().setBlockInfo(playerParser.getBlockInfo());
+        saveData.setHeaderInfo(playerParser.getHeaderInfo());
+        saveData.getDataMap().setVariableLocation(playerParser.getVariableLocation());
+        return playerParser.getBlockInfo();
+    }
+
+    /**
+     * Stub the save data injected in PlayerWriter with the data loaded, saving to playerChr
+     */
+    static void stubWriter(CurrentPlayerData mockSaveData, CurrentPlayerData saveData, Path playerChr) {
+        Mockito.lenient().when(mockSaveData.getDataMap()).thenReturn(saveData.getDataMap());
+        Mockito.lenient().when(mockSaveData.getBuffer()).thenReturn(saveData.getBuffer());
+        Mockito.lenient().when(mockSaveData.getPlayerChr()).thenReturn(playerChr);
+    }
+}
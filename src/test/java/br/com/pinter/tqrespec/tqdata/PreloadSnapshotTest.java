@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2022 Emerson Pinter - All Rights Reserved
+ */
+
+package br.com.pinter.tqrespec.tqdata;
+
+import br.com.pinter.tqrespec.util.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class PreloadSnapshotTest {
+    private static final Map<String, String> TEXT = Map.of(
+            "tagSkillName01", "Fire Ring",
+            "tagEmpty", "",
+            "tagUnicode", "\u00c7a va, \u65e5\u672c\u8a9e");
+    private static final Map<String, Boolean> RECORDS = Map.of(
+            "records\\skills\\default\\defaultwpbasicattack.dbr", true,
+            "records\\missing.dbr", false);
+
+    @Mock
+    private GameInfo gameInfo;
+
+    @InjectMocks
+    private PreloadSnapshot preloadSnapshot;
+
+    @TempDir
+    Path tempDir;
+
+    private Path database;
+
+    private Path textFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        database = tempDir.resolve("Database").resolve("database.arz");
+        textFile = tempDir.resolve("Text").resolve("Text_EN.arc");
+        Files.createDirectories(database.getParent());
+        Files.createDirectories(textFile.getParent());
+        Files.writeString(database, "database");
+        Files.writeString(textFile, "text");
+
+        Mockito.lenient().when(gameInfo.getSavePath()).thenReturn(tempDir.resolve("save").toString());
+        Mockito.lenient().when(gameInfo.getDatabasePath()).thenReturn(new String[]{database.toString()});
+        Mockito.lenient().when(gameInfo.getTextPath()).thenReturn(new String[]{textFile.getParent().toString()});
+    }
+
+    private Path snapshotFile(String fileName) {
+        return Paths.get(tempDir.resolve("save").toString(), Constants.CACHE_DIRECTORY, fileName);
+    }
+
+    private static void touch(Path file) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10000));
+    }
+
+    @Test
+    void readText_Should_returnStringsWritten() {
+        assertNull(preloadSnapshot.readText("EN"));
+        preloadSnapshot.writeText("EN", TEXT);
+        assertEquals(TEXT, preloadSnapshot.readText("EN"));
+        //the locale is part of the key
+        assertNull(preloadSnapshot.readText("FR"));
+    }
+
+    @Test
+    void readRecords_Should_returnRecordsWritten() {
+        assertNull(preloadSnapshot.readRecords());
+        preloadSnapshot.writeRecords(RECORDS);
+        assertEquals(RECORDS, preloadSnapshot.readRecords());
+    }
+
+    @Test
+    void read_Should_discardSnapshot_When_databaseModified() throws IOException {
+        preloadSnapshot.writeText("EN", TEXT);
+        preloadSnapshot.writeRecords(RECORDS);
+
+        touch(database);
+        assertNull(preloadSnapshot.readText("EN"));
+        assertNull(preloadSnapshot.readRecords());
+    }
+
+    @Test
+    void read_Should_discardSnapshot_When_textModified() throws IOException {
+        preloadSnapshot.writeText("EN", TEXT);
+        preloadSnapshot.writeRecords(RECORDS);
+
+        touch(textFile);
+        assertNull(preloadSnapshot.readText("EN"));
+        assertNull(preloadSnapshot.readRecords());
+
+        //written again with the new key
+        preloadSnapshot.writeText("EN", TEXT);
+        assertEquals(TEXT, preloadSnapshot.readText("EN"));
+    }
+
+    /**
+     * @return reader of each snapshot file
+     */
+    private Map<String, Supplier<Map<String, ?>>> readers() {
+        return Map.of(Constants.PRELOAD_SNAPSHOT_FILE, () -> preloadSnapshot.readText("EN"),
+                Constants.RECORD_INDEX_FILE, preloadSnapshot::readRecords);
+    }
+
+    @Test
+    void read_Should_returnNull_When_fileTruncated() throws IOException {
+        preloadSnapshot.writeText("EN", TEXT);
+        preloadSnapshot.writeRecords(RECORDS);
+
+        for (Map.Entry<String, Supplier<Map<String, ?>>> reader : readers().entrySet()) {
+            Path file = snapshotFile(reader.getKey());
+            byte[] data = Files.readAllBytes(file);
+            //inside the header and inside the contents
+            for (int length : new int[]{0, 6, data.length - 3}) {
+                Files.write(file, Arrays.copyOf(data, length));
+                assertNull(reader.getValue().get(), reader.getKey() + " " + length);
+            }
+        }
+    }
+
+    @Test
+    void read_Should_returnNull_When_fileCorrupt() throws IOException {
+        preloadSnapshot.writeText("EN", TEXT);
+        preloadSnapshot.writeRecords(RECORDS);
+
+        for (Map.Entry<String, Supplier<Map<String, ?>>> reader : readers().entrySet()) {
+            Path file = snapshotFile(reader.getKey());
+            byte[] data = Files.readAllBytes(file);
+            int keyLength = ByteBuffer.wrap(data).getInt(4);
+            //key length, entries count and length of the first string
+            for (int offset : new int[]{4, 8 + keyLength, 12 + keyLength}) {
+                for (int value : new int[]{Integer.MAX_VALUE, -1}) {
+                    byte[] corrupt = data.clone();
+                    ByteBuffer.wrap(corrupt).putInt(offset, value);
+                    Files.write(file, corrupt);
+                    assertNull(reader.getValue().get(), reader.getKey() + " " + offset + " " + value);
+                }
+            }
+            Files.write(file, data);
+            assertNotNull(reader.getValue().get());
+        }
+    }
+}